@@ -6,4 +6,8 @@ package lemoon.can.milkyway.common.constant;
  */
 public class FileConstant {
     public final static Long PRIVATE_FILE_VALID_DAYS = 30L;
+    /**
+     * 临时访问链接过期时间的取整粒度（秒），同一粒度内生成的链接相同，可复用缓存
+     */
+    public final static long TEMPORARY_URL_EXPIRE_BUCKET_SECONDS = 60L;
 }
@@ -0,0 +1,26 @@
+package lemoon.can.milkyway.common.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 导出格式
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@AllArgsConstructor
+@Getter
+public enum ExportFormat {
+    /**
+     * 每行一个JSON对象
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * 逗号分隔
+     */
+    CSV("text/csv", "csv"),
+    ;
+    private final String contentType;
+    private final String extension;
+}
@@ -9,6 +9,14 @@ public enum ExtInfoKeyName {
      * 消息媒体清理游标
      */
     msg_media_clear_cursor,
+    /**
+     * 已删除动态的级联清理进度
+     */
+    moment_purge_progress,
+    /**
+     * 已删除聊天的级联清理进度
+     */
+    chat_purge_progress,
     ;
 
 }
@@ -37,6 +37,10 @@ public enum MessageNotifyType {
      * 取消点赞
      */
     UNLIKE,
+    /**
+     * 点赞汇总(同一动态在聚合窗口内的多个点赞)
+     */
+    LIKE_SUMMARY,
 
     /**
      * 评论
@@ -0,0 +1,20 @@
+package lemoon.can.milkyway.common.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 限流动作，每个用户每个动作一个令牌桶
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@AllArgsConstructor
+@Getter
+public enum RateLimitAction {
+    SEND_MESSAGE("发送消息"),
+    FILE_UPLOAD("上传文件"),
+    AI_REPLY("AI调用"),
+    ;
+    private final String description;
+}
@@ -15,6 +15,7 @@ public enum ErrorCode {
     UNSUPPORTED("不支持的操作"),
     SYSTEM_ERROR("系统错误"),
     UNCERTIFIED("未认证"),
+    BUSY("系统繁忙，请稍后再试"),
     ;
     private final String message;
 }
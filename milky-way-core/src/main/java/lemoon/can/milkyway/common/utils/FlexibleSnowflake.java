@@ -1,28 +1,34 @@
 package lemoon.can.milkyway.common.utils;
 
-import java.util.concurrent.locks.ReentrantLock;
-import java.security.SecureRandom;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 短、递增、不可预测、机器数支持多种的雪花算法实现
  * <p>
+ * ID结构(高位到低位)：时间戳 | 机器位 | 序列位 | 随机位
+ * <p>
  * 递增保证策略：
  * 1. 时间戳在最高位，确保时间推进时ID严格递增
- * 2. 同一毫秒内通过严格的序列号递增保证单调性
- * 3. 不对最终ID进行破坏递增性的变换操作
+ * 2. 同一毫秒内机器位不变，序列号严格递增，保证单调性
+ * 3. 随机位在最低位，不影响递增性
  * <p>
  * 不可预测策略：
- * 1. 动态时间戳偏移（在不破坏递增的前提下）
- * 2. 序列号随机起始点 + 动态步长
- * 3. 机器ID位置混淆
- * 4. 多源随机位填充
- * 5. 内部组件顺序重排（保持时间戳最高位）
+ * 1. 每毫秒序列号随机起始点 + 随机步长
+ * 2. 机器ID按毫秒置换(同一毫秒内所有机器使用同一置换，不会冲突)
+ * 3. 最低位随机填充
+ * <p>
+ * 并发：(时间戳, 序列号) 打包在一个 AtomicLong 中，通过 CAS 推进，无锁；
+ * {@link #nextIds(int)} 一次 CAS 预留同一毫秒内的一段序列号
  */
 public class FlexibleSnowflake {
 
     // 时间戳基准点 (2025-01-01 00:00:00)
     private static final long EPOCH = 1735689600000L;
+    /**
+     * 同一毫秒内序列号的最大随机步长
+     */
+    private static final int MAX_STEP = 7;
 
     // 预定义配置枚举
     public enum MachineConfig {
@@ -57,22 +63,11 @@ public class FlexibleSnowflake {
     private final int machineShift;
     private final int timestampShift;
 
-    // 运行时状态
     private final long machineId;
-    private long lastTimestamp = -1L;
-    private long sequence = 0L;
-    private final SecureRandom secureRandom = new SecureRandom();
-    private final ReentrantLock lock = new ReentrantLock();
-
-    // 不可预测性增强参数（不破坏递增性）
-    private final long machineSecret;
-    private final int[] sequenceSteps;          // 动态序列步长数组
-    private int stepIndex = 0;                  // 当前步长索引
-    private final long[] machinePositions;      // 机器ID位置混淆表
-    private final boolean randomizeComponents;   // 是否重排内部组件
-    private int[] componentOrder;         // 组件排列顺序
-    private long baseSequence;                  // 序列号基数
-    private long callCounter = 0;
+    /**
+     * 运行时状态：(相对时间戳 << sequenceBits) | 已分配的最大序列号
+     */
+    private final AtomicLong state = new AtomicLong();
 
     /**
      * 构造函数 - 简化版，只需指定机器配置类型和机器ID
@@ -95,13 +90,13 @@ public class FlexibleSnowflake {
 
         // 根据配置类型自动调整序列位和随机位
         if (configType == MachineConfig.SMALL) {
-            this.sequenceBits = 6;  // 支持每秒64个
+            this.sequenceBits = 6;  // 每毫秒64个序列号
             this.randomBits = 4;    // 基础随机性
         } else if (configType == MachineConfig.MEDIUM) {
-            this.sequenceBits = 8;  // 支持每秒256个
+            this.sequenceBits = 8;  // 每毫秒256个序列号
             this.randomBits = 6;    // 增强随机性
         } else { // LARGE
-            this.sequenceBits = 10; // 支持每秒1024个
+            this.sequenceBits = 10; // 每毫秒1024个序列号
             this.randomBits = 8;    // 最强随机性
         }
 
@@ -115,43 +110,10 @@ public class FlexibleSnowflake {
             throw new IllegalArgumentException("时间戳位数不足，无法支持200年");
         }
 
-        // 组件顺序：时间戳始终在最高位，其他组件可重排
-        this.randomizeComponents = configType.targetDigits >= 18; // 18位以上才启用重排
         // 位移量（时间戳始终在最高位）
-        int randomShift;
-        if (randomizeComponents) {
-            // 随机排列：[随机位, 机器位, 序列位] 的顺序
-            this.componentOrder = generateRandomOrder();
-            randomShift = getShiftForComponent(0);
-            this.machineShift = getShiftForComponent(1);
-            this.sequenceShift = getShiftForComponent(2);
-        } else {
-            // 标准顺序
-            randomShift = 0;
-            this.sequenceShift = randomBits;
-            this.machineShift = sequenceShift + sequenceBits;
-        }
+        this.sequenceShift = randomBits;
+        this.machineShift = sequenceShift + sequenceBits;
         this.timestampShift = machineBits + sequenceBits + randomBits;
-
-        // 初始化不可预测参数
-        this.machineSecret = generateMachineSecret(machineId);
-        this.sequenceSteps = generateSequenceSteps();
-        this.machinePositions = generateMachinePositions();
-        this.baseSequence = ThreadLocalRandom.current().nextLong(maxSequence / 4); // 随机起始点
-    }
-
-    /**
-     * 根据机器数量获取对应配置
-     */
-    private static MachineConfig getConfigByMachineCount(int machineCount) {
-        return switch (machineCount) {
-            case 4 -> MachineConfig.SMALL;
-            case 32 -> MachineConfig.MEDIUM;
-            case 64 -> MachineConfig.LARGE;
-            default -> throw new IllegalArgumentException(
-                    "不支持的机器数量: " + machineCount + "，仅支持: 4, 32, 64"
-            );
-        };
     }
 
     /**
@@ -166,57 +128,28 @@ public class FlexibleSnowflake {
      * 生成下一个ID - 严格保证递增
      */
     public String nextId() {
-        lock.lock();
-        try {
-            callCounter++;
-            long timestamp = getCurrentTimestamp();
-
-            // 严格的时钟回拨检测
-            if (timestamp < lastTimestamp) {
-                throw new RuntimeException("检测到时钟回拨，拒绝生成ID以保证递增性");
-            }
-
-            if (timestamp == lastTimestamp) {
-                // 同一毫秒内：严格递增序列号
-                sequence = getNextSequenceInSameMs();
-                if (sequence > maxSequence) {
-                    // 序列号用完，等待下一毫秒
-                    timestamp = waitNextMillis(timestamp);
-                    resetSequenceForNewMs();
-                }
-            } else {
-                // 新毫秒：重置序列号（随机起点但保证能递增）
-                resetSequenceForNewMs();
-            }
-
-            lastTimestamp = timestamp;
-
-            // 生成不可预测但不影响递增的随机值
-            long randomValue = generatePredictableRandom();
-
-            // 混淆机器ID（在允许范围内）
-            long obfuscatedMachineId = obfuscateMachineId();
-
-            // 按照组件顺序组装ID（时间戳始终在最高位）
-            long id = ((timestamp - EPOCH) << timestampShift);
-
-            if (randomizeComponents) {
-                // 根据重排顺序添加组件
-                id |= getComponentValue(0, randomValue) << getShiftForComponent(0);
-                id |= getComponentValue(1, obfuscatedMachineId) << getShiftForComponent(1);
-                id |= getComponentValue(2, sequence) << getShiftForComponent(2);
-            } else {
-                // 标准顺序
-                id |= (obfuscatedMachineId << machineShift) |
-                        (sequence << sequenceShift) |
-                        randomValue;
-            }
-
-            return prefix + id;
+        long[] ids = new long[1];
+        reserve(ids, 0, 1);
+        return prefix + ids[0];
+    }
 
-        } finally {
-            lock.unlock();
+    /**
+     * 批量生成ID，按毫秒整段预留序列号，每毫秒只需一次CAS
+     *
+     * @param count 数量
+     * @return 严格递增的ID
+     */
+    public String[] nextIds(int count) {
+        long[] raw = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            filled += reserve(raw, filled, count - filled);
         }
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = prefix + raw[i];
+        }
+        return ids;
     }
 
     /**
@@ -226,8 +159,8 @@ public class FlexibleSnowflake {
         if (ids.length < 2) return true;
 
         for (int i = 1; i < ids.length; i++) {
-            long prev = Long.parseLong(ids[i - 1]);
-            long curr = Long.parseLong(ids[i]);
+            long prev = Long.parseLong(ids[i - 1].substring(prefix.length()));
+            long curr = Long.parseLong(ids[i].substring(prefix.length()));
             if (curr <= prev) {
                 System.out.println("递增性验证失败: " + prev + " >= " + curr);
                 return false;
@@ -236,181 +169,63 @@ public class FlexibleSnowflake {
         return true;
     }
 
-    /**
-     * 批量生成ID
-     */
-    public String[] nextIds(int count) {
-        String[] ids = new String[count];
-        for (int i = 0; i < count; i++) {
-            ids[i] = nextId();
-        }
-        return ids;
-    }
-
     // ============ 递增性保证的核心方法 ============
 
     /**
-     * 同一毫秒内获取下一个序列号 - 严格递增
-     */
-    private long getNextSequenceInSameMs() {
-        // 使用动态步长，但保证递增
-        int step = sequenceSteps[stepIndex % sequenceSteps.length];
-        stepIndex++;
-
-        long nextSeq = sequence + step;
-
-        // 确保不超过最大值
-        if (nextSeq > maxSequence) {
-            return maxSequence + 1; // 触发等待下一毫秒
-        }
-
-        return nextSeq;
-    }
-
-    /**
-     * 新毫秒重置序列号
-     */
-    private void resetSequenceForNewMs() {
-        // 随机起始点，但要为后续递增留出空间
-        long maxStart = maxSequence / 4; // 最多用1/4空间作为起始点
-        baseSequence = (baseSequence + ThreadLocalRandom.current().nextInt(1, 10)) % maxStart;
-        sequence = baseSequence;
-
-        // 重新混洗步长数组
-        if (callCounter % 50 == 0) {
-            shuffleSequenceSteps();
-        }
-    }
-
-    /**
-     * 等待下一毫秒
-     */
-    private long waitNextMillis(long lastTimestamp) {
-        long timestamp = getCurrentTimestamp();
-        while (timestamp <= lastTimestamp) {
-            timestamp = getCurrentTimestamp();
-        }
-        return timestamp;
-    }
-
-    // ============ 不可预测性增强方法（不破坏递增） ============
-
-    /**
-     * 生成可预测的随机值（用于保持一定的顺序特征）
-     */
-    private long generatePredictableRandom() {
-        // 基于时间和调用次数的伪随机，保持相对稳定的分布
-        long base = (callCounter + System.nanoTime()) % maxRandom;
-        long random = (base * 31 + machineSecret) % maxRandom;
-        return random & maxRandom;
-    }
-
-    /**
-     * 混淆机器ID（在合法范围内变化）
-     */
-    private long obfuscateMachineId() {
-        // 使用预生成的位置表
-        int posIndex = (int) (callCounter % machinePositions.length);
-        return machinePositions[posIndex];
-    }
+     * 在当前毫秒内预留一段序列号并生成ID
+     * 当前毫秒的序列号用完时自旋等待下一毫秒
+     *
+     * @param out    输出数组
+     * @param offset 写入起点
+     * @param count  期望数量
+     * @return 实际生成的数量，至少为1
+     */
+    private int reserve(long[] out, int offset, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> sequenceBits;
+            long timestamp = getCurrentTimestamp() - EPOCH;
 
-    /**
-     * 生成随机组件顺序
-     */
-    private int[] generateRandomOrder() {
-        int[] order = {0, 1, 2}; // 随机位, 机器位, 序列位
-        // Fisher-Yates洗牌
-        for (int i = order.length - 1; i > 0; i--) {
-            int j = secureRandom.nextInt(i + 1);
-            int temp = order[i];
-            order[i] = order[j];
-            order[j] = temp;
-        }
-        return order;
-    }
+            // 严格的时钟回拨检测
+            if (timestamp < lastTimestamp) {
+                throw new IllegalStateException("检测到时钟回拨，拒绝生成ID以保证递增性");
+            }
 
-    /**
-     * 根据组件顺序获取位移量
-     */
-    private int getShiftForComponent(int componentIndex) {
-        int position = 0;
-        for (int i = 0; i < componentOrder.length; i++) {
-            if (componentOrder[i] == componentIndex) {
-                position = i;
-                break;
+            // 新毫秒：随机起点(最多用1/4空间)；同一毫秒：在上次的基础上随机步进
+            long sequence = timestamp > lastTimestamp
+                    ? random.nextLong(maxSequence / 4)
+                    : (current & maxSequence) + random.nextInt(1, MAX_STEP + 1);
+            int reserved = 0;
+            while (reserved < count && sequence <= maxSequence) {
+                out[offset + reserved++] = sequence;
+                sequence += random.nextInt(1, MAX_STEP + 1);
+            }
+            if (reserved == 0) {
+                // 序列号用完，等待下一毫秒
+                Thread.onSpinWait();
+                continue;
             }
-        }
 
-        switch (position) {
-            case 0:
-                return 0;
-            case 1:
-                return componentOrder[0] == 0 ? randomBits :
-                        componentOrder[0] == 1 ? machineBits : sequenceBits;
-            case 2:
-                int shift = 0;
-                for (int i = 0; i < 2; i++) {
-                    shift += (componentOrder[i] == 0 ? randomBits :
-                            componentOrder[i] == 1 ? machineBits : sequenceBits);
+            long last = out[offset + reserved - 1];
+            if (state.compareAndSet(current, (timestamp << sequenceBits) | last)) {
+                long high = (timestamp << timestampShift) | (obfuscateMachineId(timestamp) << machineShift);
+                for (int i = offset; i < offset + reserved; i++) {
+                    out[i] = high | (out[i] << sequenceShift) | random.nextLong(maxRandom + 1);
                 }
-                return shift;
-            default:
-                return 0;
-        }
-    }
-
-    /**
-     * 获取组件值
-     */
-    private long getComponentValue(int componentType, long value) {
-        return switch (componentType) {
-            case 0 -> value & maxRandom;       // 随机位
-            case 1 -> value & maxMachine;      // 机器位
-            case 2 -> value & maxSequence;     // 序列位
-            default -> 0;
-        };
-    }
-
-    /**
-     * 生成机器密钥
-     */
-    private long generateMachineSecret(long machineId) {
-        return machineId * 31 + System.currentTimeMillis() + secureRandom.nextLong();
-    }
-
-    /**
-     * 生成序列步长数组
-     */
-    private int[] generateSequenceSteps() {
-        int[] steps = new int[16];
-        for (int i = 0; i < steps.length; i++) {
-            steps[i] = ThreadLocalRandom.current().nextInt(1, 8); // 步长1-7
+                return reserved;
+            }
         }
-        return steps;
     }
 
-    /**
-     * 混洗序列步长
-     */
-    private void shuffleSequenceSteps() {
-        for (int i = sequenceSteps.length - 1; i > 0; i--) {
-            int j = ThreadLocalRandom.current().nextInt(i + 1);
-            int temp = sequenceSteps[i];
-            sequenceSteps[i] = sequenceSteps[j];
-            sequenceSteps[j] = temp;
-        }
-    }
+    // ============ 不可预测性增强方法（不破坏递增） ============
 
     /**
-     * 生成机器位置表
+     * 混淆机器ID：按时间戳对所有机器做同一个置换(加上同一偏移后取模)，不同机器在同一毫秒内仍互不相同
      */
-    private long[] generateMachinePositions() {
-        long[] positions = new long[64];
-        for (int i = 0; i < positions.length; i++) {
-            // 在合法范围内生成不同的机器ID变种
-            positions[i] = (machineId + i * 7) % (maxMachine + 1);
-        }
-        return positions;
+    private long obfuscateMachineId(long timestamp) {
+        long offset = (timestamp * 0x9E3779B97F4A7C15L) >>> (64 - machineBits);
+        return (machineId + offset * 7) & maxMachine;
     }
 
     private int getBitsForDigits(int digits) {
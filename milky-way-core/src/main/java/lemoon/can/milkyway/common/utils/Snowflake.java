@@ -2,6 +2,7 @@ package lemoon.can.milkyway.common.utils;
 
 import java.time.Instant;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
 
 /**
  * @author lemoon
@@ -18,26 +19,51 @@ public final class Snowflake {
 
     private static final long SEQ_MASK   = (1L << SEQ_BITS)   - 1;
     private static final long WORK_MASK  = (1L << WORKER_BITS) - 1;
+    public  static final int  MAX_WORKER_ID = (int) WORK_MASK;
 
     private static final int WORK_SHIFT  = SEQ_BITS;
     private static final int TIME_SHIFT  = SEQ_BITS + WORKER_BITS;
 
+    private static final int PREFIX_LENGTH = 2;
+    private static final int BODY_WIDTH    = 10;             // Base-36 最少位数，不足左补 0
+    private static final int MAX_BODY      = 13;             // 正数 long 的 Base-36 最多位数
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    /** 每个线程复用的编码缓冲区 */
+    private static final ThreadLocal<char[]> BUFFER =
+            ThreadLocal.withInitial(() -> new char[PREFIX_LENGTH + MAX_BODY]);
+
     /* ===== 实例字段 ===== */
-    private final String prefix;           // 两位业务标识
-    private final long   workerId;         // 唯一实例号
+    private final char   prefix0;          // 两位业务标识
+    private final char   prefix1;
+    private final IntSupplier workerId;    // 唯一实例号，每次生成时读取，小于0表示当前不可用
     private final AtomicLong lastValue = new AtomicLong(-1L);
 
     public Snowflake(String prefix, int workerId) {
+        this(prefix, checkWorkerId(workerId));
+    }
+
+    /**
+     * @param workerId 实例号来源(如租约)，返回小于0时拒绝生成ID
+     */
+    public Snowflake(String prefix, IntSupplier workerId) {
         if (prefix == null || prefix.length() != 2)
             throw new IllegalArgumentException("prefix must be exactly 2 chars");
-        if (workerId < 0 || workerId > WORK_MASK)
-            throw new IllegalArgumentException("workerId 0-" + WORK_MASK);
 
-        this.prefix   = prefix.toUpperCase();
+        this.prefix0  = Character.toUpperCase(prefix.charAt(0));
+        this.prefix1  = Character.toUpperCase(prefix.charAt(1));
         this.workerId = workerId;
     }
 
+    private static IntSupplier checkWorkerId(int workerId) {
+        if (workerId < 0 || workerId > WORK_MASK)
+            throw new IllegalArgumentException("workerId 0-" + WORK_MASK);
+        return () -> workerId;
+    }
+
     public String nextId() {
+        long wid = workerId.getAsInt();
+        if (wid < 0 || wid > WORK_MASK)           // 租约丢失期间继续生成可能与其他实例重复
+            throw new IllegalStateException("workerId unavailable, refusing to generate id");
         while (true) {
             long nowMs = System.currentTimeMillis();
             long baseTime = nowMs - CUSTOM_EPOCH_MS;
@@ -50,22 +76,37 @@ public final class Snowflake {
                 continue;                         // 重试，等待自然进入下一毫秒
             }
             long candidate =  (baseTime << TIME_SHIFT)
-                    | (workerId << WORK_SHIFT)
+                    | (wid << WORK_SHIFT)
                     | seq;
 
             if (lastValue.compareAndSet(prev, candidate)) {
-                // 转 Base-36，左补 0 到 10 位
-                String body = Long.toString(candidate, 36).toUpperCase();
-                body = String.format("%10s", body).replace(' ', '0');
-                return prefix + body;             // 2 + 10 = 12
+                return encode(candidate);
             }
             // CAS 失败 → 并发冲突，立即重试
         }
     }
 
+    /**
+     * 转 Base-36 大写，左补 0 到 10 位(超出时按实际位数)，从右向左直接写入缓冲区
+     */
+    private String encode(long value) {
+        char[] buf = BUFFER.get();
+        int pos = buf.length;
+        do {
+            buf[--pos] = DIGITS[(int) (value % 36)];
+            value /= 36;
+        } while (value != 0);
+        while (pos > buf.length - BODY_WIDTH) {
+            buf[--pos] = '0';
+        }
+        buf[--pos] = prefix1;
+        buf[--pos] = prefix0;
+        return new String(buf, pos, buf.length - pos);   // 2 + 10 = 12
+    }
+
     /* ==== 可选解析，便于调试 ==== */
     public static Parsed parse(String id) {
-        if (id == null || id.length() != 16) throw new IllegalArgumentException();
+        if (id == null || id.length() < PREFIX_LENGTH + BODY_WIDTH) throw new IllegalArgumentException();
         long raw = Long.parseLong(id.substring(2), 36);
         long seq =  raw        & SEQ_MASK;
         long wid = (raw >>> WORK_SHIFT) & WORK_MASK;
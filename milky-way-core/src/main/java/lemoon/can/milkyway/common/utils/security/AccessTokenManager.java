@@ -9,15 +9,21 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 令牌管理器
  * token = Base64UrlWithoutPadding( fileId + "." + expire + "." + sig8 )
  * 生成约 40 字符的 URL-Safe 字符串
+ * <p>
+ * 每个密钥在每个线程上持有一个已初始化的 Mac，签名时不再重复创建和初始化；
+ * 生成的令牌按 (对象ID, 过期时间) 缓存，同一文件在同一过期时间内重复生成时直接复用
  *
  * @author lemoon
  * @since 2025/5/9
@@ -25,25 +31,14 @@ import java.util.Base64;
 @Component
 @Slf4j
 public class AccessTokenManager {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 6;
     /**
-     * 生成签名（截取 6 字节 → 8 字符）
-     *
-     * @param data 待签名数据
-     * @param key  密钥
-     * @return 签名
+     * 每个密钥缓存的令牌数
      */
-    private String shortSignature(String data, String key) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] hash = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            byte[] first6 = Arrays.copyOf(hash, 6); // 48 bit
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(first6); // 8 字符
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("生成 HMAC 签名失败, data: {}, key: {}", data, key, e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR);
-        }
-    }
+    private static final int TOKEN_CACHE_SIZE = 4096;
+
+    private final Map<String, Signer> signers = new ConcurrentHashMap<>();
 
     /**
      * 生成 token
@@ -54,10 +49,19 @@ public class AccessTokenManager {
      * @return accessCode 令牌
      */
     public String build(String objectId, long expireAtSec, String secretKey) {
-        String sig8 = shortSignature(objectId + ":" + expireAtSec, secretKey);
+        Signer signer = signer(secretKey);
+        String cacheKey = objectId + ":" + expireAtSec;
+        String accessCode = signer.cached(cacheKey);
+        if (accessCode != null) {
+            return accessCode;
+        }
+        byte[] data = cacheKey.getBytes(StandardCharsets.UTF_8);
+        String sig8 = Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign(data));
         String raw = objectId + "." + expireAtSec + "." + sig8;
-        return Base64.getUrlEncoder().withoutPadding()
+        accessCode = Base64.getUrlEncoder().withoutPadding()
                 .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        signer.cache(cacheKey, accessCode, expireAtSec);
+        return accessCode;
     }
 
     /**
@@ -68,35 +72,128 @@ public class AccessTokenManager {
      * @return AccessToken 对象
      */
     public AccessToken parseAndValidate(String accessCode, String secretKey, boolean... dontChecks) {
-        // 1. Base64 解码
-        String raw = new String(Base64.getUrlDecoder().decode(accessCode), StandardCharsets.UTF_8);
-        String[] parts = raw.split("\\.");
-        if (parts.length != 3) {
+        // 1. Base64 解码，直接在字节上定位分隔符
+        byte[] raw = Base64.getUrlDecoder().decode(accessCode);
+        int first = indexOf(raw, 0);
+        int second = first < 0 ? -1 : indexOf(raw, first + 1);
+        if (first <= 0 || second < 0 || indexOf(raw, second + 1) >= 0) {
             throw new IllegalArgumentException("非法 token");
         }
 
-        String objectId = parts[0];
-        long expireAtSec = Long.parseLong(parts[1]);
-        String sig8 = parts[2];
+        long expireAtSec = parseLong(raw, first + 1, second);
 
         // 2. 过期检查
-        if (dontChecks.length==0) {
+        if (dontChecks.length == 0) {
             if (System.currentTimeMillis() / 1000 > expireAtSec) {
                 throw new IllegalArgumentException("令牌已过期");
             }
         }
 
-        // 3. 签名校验
-        String expectedSig = shortSignature(objectId + ":" + expireAtSec, secretKey);
-        if (!expectedSig.equals(sig8)) {
+        // 3. 签名校验，签名数据为 objectId + ":" + expire
+        byte[] data = Arrays.copyOf(raw, second);
+        data[first] = ':';
+        byte[] sig = Base64.getUrlDecoder().decode(Arrays.copyOfRange(raw, second + 1, raw.length));
+        if (!MessageDigest.isEqual(signer(secretKey).sign(data), sig)) {
             throw new IllegalArgumentException("签名不匹配");
         }
 
         // 4. 构造 AccessToken 对象
         AccessToken at = new AccessToken();
-        at.setObjectId(objectId);
+        at.setObjectId(new String(raw, 0, first, StandardCharsets.UTF_8));
         at.setExpireAt(expireAtSec * 1000);
-        at.setSignature(sig8);
+        at.setSignature(new String(raw, second + 1, raw.length - second - 1, StandardCharsets.UTF_8));
         return at;
     }
-}
\ No newline at end of file
+
+    private Signer signer(String secretKey) {
+        return signers.computeIfAbsent(secretKey, Signer::new);
+    }
+
+    private static int indexOf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == '.') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long parseLong(byte[] bytes, int from, int to) {
+        if (from >= to || to - from > 18) {
+            throw new IllegalArgumentException("非法 token");
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("非法 token");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 单个密钥的签名器与令牌缓存
+     */
+    private static class Signer {
+        private final SecretKeySpec keySpec;
+        private final ThreadLocal<Mac> macs;
+        private final Map<String, CachedToken> tokens = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+                return size() > TOKEN_CACHE_SIZE;
+            }
+        };
+
+        Signer(String secretKey) {
+            this.keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            this.macs = ThreadLocal.withInitial(this::newMac);
+        }
+
+        /**
+         * 生成签名（截取 6 字节 → 8 字符）
+         *
+         * @param data 待签名数据
+         * @return 签名前 6 字节
+         */
+        byte[] sign(byte[] data) {
+            // doFinal 后 Mac 自动重置，可直接复用
+            return Arrays.copyOf(macs.get().doFinal(data), SIGNATURE_BYTES);
+        }
+
+        String cached(String key) {
+            synchronized (tokens) {
+                CachedToken token = tokens.get(key);
+                if (token == null) {
+                    return null;
+                }
+                if (System.currentTimeMillis() / 1000 > token.expireAtSec) {
+                    tokens.remove(key);
+                    return null;
+                }
+                return token.accessCode;
+            }
+        }
+
+        void cache(String key, String accessCode, long expireAtSec) {
+            synchronized (tokens) {
+                tokens.put(key, new CachedToken(accessCode, expireAtSec));
+            }
+        }
+
+        private Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                log.error("初始化 HMAC 失败", e);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+            }
+        }
+    }
+
+    private record CachedToken(String accessCode, long expireAtSec) {
+    }
+}
@@ -2,6 +2,7 @@ package lemoon.can.milkyway.common.utils.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lemoon.can.milkyway.common.exception.CustomSecurityException;
@@ -17,9 +18,9 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.util.Collection;
-import java.util.Date;
-import java.util.List;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 @Slf4j
 @Component
@@ -27,10 +28,26 @@ public class JwtTokenProvider {
     @Value("${jwt.token-validity}")
     private long TOKEN_VALIDITY;
     private final SecretKey key;
+    /**
+     * 解析器不可变且线程安全，全局共用
+     */
+    private final JwtParser parser;
+    /**
+     * 已校验token的声明缓存，key为token的SHA-256，按LRU淘汰
+     */
+    private final Map<String, VerifiedClaims> verified;
 
-    public JwtTokenProvider(@Value("${jwt.secret-key}") String secretKey) {
+    public JwtTokenProvider(@Value("${jwt.secret-key}") String secretKey,
+                            @Value("${jwt.claims-cache-size:10000}") int claimsCacheSize) {
         // 对称加密算法
         key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verified = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedClaims> eldest) {
+                return size() > claimsCacheSize;
+            }
+        };
     }
 
     /**
@@ -53,26 +70,64 @@ public class JwtTokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        validateToken(token);
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
+        VerifiedClaims claims = verify(token);
         Collection<? extends GrantedAuthority> authorities = List.of();
-        UserDetails principal = new User(claims.getSubject(), "", authorities);
+        UserDetails principal = new User(claims.subject(), "", authorities);
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
     public void validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-        }catch (ExpiredJwtException e){
+        verify(token);
+    }
 
+    /**
+     * 校验token，命中缓存时只检查过期时间，否则校验签名后放入缓存
+     *
+     * @param token JWT令牌
+     * @return 已校验的声明
+     */
+    private VerifiedClaims verify(String token) {
+        String fingerprint = fingerprint(token);
+        VerifiedClaims cached;
+        synchronized (verified) {
+            cached = verified.get(fingerprint);
+        }
+        if (cached != null) {
+            if (System.currentTimeMillis() >= cached.expireAt()) {
+                synchronized (verified) {
+                    verified.remove(fingerprint);
+                }
+                throw new CustomSecurityException(SecurityErrorCode.TOKEN_EXPIRED);
+            }
+            return cached;
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
             throw new CustomSecurityException(SecurityErrorCode.TOKEN_EXPIRED);
         } catch (Exception e) {
             throw new CustomSecurityException(SecurityErrorCode.TOKEN_INVALID);
         }
+        Date expiration = claims.getExpiration();
+        VerifiedClaims result = new VerifiedClaims(claims.getSubject(),
+                expiration == null ? Long.MAX_VALUE : expiration.getTime());
+        synchronized (verified) {
+            verified.put(fingerprint, result);
+        }
+        return result;
+    }
+
+    private static String fingerprint(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedClaims(String subject, long expireAt) {
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package lemoon.can.milkyway.common.utils.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lemoon.can.milkyway.common.exception.BusinessException;
+import lemoon.can.milkyway.common.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 在独立线程池中执行BCrypt计算的密码编码器
+ * <ul>
+ *     <li>线程数限制BCrypt占用的CPU，登录高峰不会挤占聊天请求</li>
+ *     <li>队列满时立即失败，等待超时同样失败，调用线程不会无限期阻塞</li>
+ *     <li>已存储哈希的cost与配置不一致时需要升级，登录成功后在线程池空闲时后台重新编码，繁忙时跳过</li>
+ * </ul>
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+public class OffloadedPasswordEncoder implements PasswordEncoder, DisposableBean {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer queueTimer;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    /**
+     * @param strength      BCrypt cost
+     * @param threads       计算线程数
+     * @param queueCapacity 等待队列长度
+     * @param timeoutMillis 调用方最长等待时间(排队+计算)
+     * @param meterRegistry 指标注册表
+     */
+    public OffloadedPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMillis,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "bcrypt-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queueTimer = Timer.builder("login.password.queue")
+                .description("密码计算任务排队时间")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("login.password.hash")
+                .description("密码计算耗时")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("login.password.rejected")
+                .description("因繁忙被拒绝的密码计算")
+                .register(meterRegistry);
+        Gauge.builder("login.password.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return offload(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return offload(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 已存储哈希的cost与配置不一致时升级(调高或调低)
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(2)) != strength;
+    }
+
+    /**
+     * 线程池空闲时在后台编码，不等待结果；有排队任务或线程池已满时跳过
+     *
+     * @param rawPassword 明文密码
+     * @param callback    编码完成后在计算线程中回调
+     * @return 是否已提交
+     */
+    public boolean encodeIfIdle(CharSequence rawPassword, Consumer<String> callback) {
+        // 只占用空闲线程，不与排队中的登录争抢
+        if (!executor.getQueue().isEmpty() || executor.getActiveCount() >= executor.getMaximumPoolSize()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    callback.accept(hashTimer.record(() -> delegate.encode(rawPassword)));
+                } catch (RuntimeException e) {
+                    log.warn("后台密码编码失败", e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private <T> T offload(Supplier<T> task) {
+        long submitAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueTimer.record(System.nanoTime() - submitAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new BusinessException(ErrorCode.BUSY, "登录人数过多，请稍后再试");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new BusinessException(ErrorCode.BUSY, "登录人数过多，请稍后再试");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
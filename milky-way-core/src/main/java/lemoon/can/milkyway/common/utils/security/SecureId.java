@@ -1,19 +1,43 @@
 package lemoon.can.milkyway.common.utils.security;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import org.hashids.Hashids;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * 固定盐编解码的结果按盐缓存(双向LRU)，聊天列表、推送、历史消息中同一ID会被反复编码
+ *
  * @author lemoon
  * @since 2025/5/13
  */
 @Component
 public class SecureId {
+    private static final int MIN_HASH_LENGTH = 12;
+    /**
+     * 每个LRU的分段数，降低锁竞争
+     */
+    private static final int CACHE_STRIPES = 16;
+
+    /**
+     * 固定盐 -> 编解码器
+     */
+    private final Map<String, Codec> codecs = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int cacheSize;
+
     @Value("${security.secure-id.friend-application-salt}")
     @Getter
     private String friendApplicationSalt;
@@ -34,6 +58,23 @@ public class SecureId {
     @Getter
     private String commentSalt;
 
+    public SecureId(MeterRegistry meterRegistry,
+                    @Value("${security.secure-id.cache-size:10000}") int cacheSize) {
+        this.meterRegistry = meterRegistry;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * 按业务类型注册编解码器，指标以类型区分，不暴露盐
+     */
+    @PostConstruct
+    public void init() {
+        register("friend_application", friendApplicationSalt);
+        register("chat", chatSalt);
+        register("message", messageSalt);
+        register("moment", momentSalt);
+        register("comment", commentSalt);
+    }
 
     private String generateRandomSalt() {
         byte[] salt = new byte[8];
@@ -43,7 +84,7 @@ public class SecureId {
 
     public String encode(Long id, String fixedSalt) {
         String randomSalt = generateRandomSalt();
-        Hashids hashids = new Hashids(fixedSalt + randomSalt, 12);
+        Hashids hashids = new Hashids(fixedSalt + randomSalt, MIN_HASH_LENGTH);
         return hashids.encode(id) + "." + randomSalt;
     }
 
@@ -53,7 +94,7 @@ public class SecureId {
             throw new IllegalArgumentException("非法ID");
         }
 
-        Hashids decoder = new Hashids(fixedSalt + parts[1], 12);
+        Hashids decoder = new Hashids(fixedSalt + parts[1], MIN_HASH_LENGTH);
         long[] decoded = decoder.decode(parts[0]);
         if (decoded.length == 0) {
             throw new IllegalArgumentException("非法ID");
@@ -62,16 +103,169 @@ public class SecureId {
     }
 
     public String simpleEncode(Long id, String fixedSalt) {
-        Hashids hashids = new Hashids(fixedSalt, 12);
-        return hashids.encode(id);
+        return codec(fixedSalt).encode(id);
     }
 
     public Long simpleDecode(String encoded, String fixedSalt) {
-        Hashids decoder = new Hashids(fixedSalt, 12);
-        long[] decoded = decoder.decode(encoded);
-        if (decoded.length == 0) {
+        Long id = tryDecode(encoded, fixedSalt);
+        if (id == null) {
             throw new IllegalArgumentException("非法ID");
         }
-        return decoded[0];
+        return id;
+    }
+
+    /**
+     * 解码，失败时返回null而不抛出异常
+     *
+     * @param encoded   编码后的ID
+     * @param fixedSalt 盐
+     * @return 解码后的ID，非法时返回null
+     */
+    public Long tryDecode(String encoded, String fixedSalt) {
+        if (encoded == null || encoded.isEmpty()) {
+            return null;
+        }
+        return codec(fixedSalt).decode(encoded);
+    }
+
+    /**
+     * 批量解码
+     *
+     * @param encodedIds 编码后的ID列表
+     * @param fixedSalt  盐
+     * @return 解码后的ID列表，顺序与入参一致
+     */
+    public List<Long> simpleDecode(List<String> encodedIds, String fixedSalt) {
+        List<Long> ids = new ArrayList<>(encodedIds.size());
+        for (String encoded : encodedIds) {
+            ids.add(simpleDecode(encoded, fixedSalt));
+        }
+        return ids;
+    }
+
+    private void register(String type, String fixedSalt) {
+        codecs.computeIfAbsent(fixedSalt, salt -> new Codec(type, salt));
+    }
+
+    /**
+     * 获取固定盐对应的编解码器
+     */
+    private Codec codec(String fixedSalt) {
+        return codecs.computeIfAbsent(fixedSalt, salt -> new Codec("other", salt));
+    }
+
+    /**
+     * 单个固定盐的编解码器
+     * Hashids构造时需要按盐打乱字母表，开销远大于一次编解码；实例不可变，可在线程间共享
+     * 编码是双射，编码或解码成功后两个方向同时写入缓存
+     */
+    private class Codec {
+        private final Hashids hashids;
+        private final StripedLru<Long, String> encoded = new StripedLru<>(cacheSize);
+        private final StripedLru<String, Long> decoded = new StripedLru<>(cacheSize);
+        private final Counter encodeHits;
+        private final Counter encodeMisses;
+        private final Counter decodeHits;
+        private final Counter decodeMisses;
+
+        Codec(String type, String fixedSalt) {
+            this.hashids = new Hashids(fixedSalt, MIN_HASH_LENGTH);
+            this.encodeHits = counter(type, "encode", "hit");
+            this.encodeMisses = counter(type, "encode", "miss");
+            this.decodeHits = counter(type, "decode", "hit");
+            this.decodeMisses = counter(type, "decode", "miss");
+            Gauge.builder("secure.id.cache.size", encoded, StripedLru::size)
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+
+        String encode(long id) {
+            String value = encoded.get(id);
+            if (value != null) {
+                encodeHits.increment();
+                return value;
+            }
+            encodeMisses.increment();
+            value = hashids.encode(id);
+            encoded.put(id, value);
+            decoded.put(value, id);
+            return value;
+        }
+
+        Long decode(String value) {
+            Long id = decoded.get(value);
+            if (id != null) {
+                decodeHits.increment();
+                return id;
+            }
+            decodeMisses.increment();
+            long[] result = hashids.decode(value);
+            if (result.length == 0) {
+                return null;
+            }
+            id = result[0];
+            decoded.put(value, id);
+            encoded.put(id, value);
+            return id;
+        }
+
+        private Counter counter(String type, String operation, String result) {
+            return Counter.builder("secure.id.cache")
+                    .description("ID编解码缓存命中情况")
+                    .tag("type", type)
+                    .tag("operation", operation)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 分段的LRU，每段为访问有序的LinkedHashMap
+     */
+    private static class StripedLru<K, V> {
+        private final LinkedHashMap<K, V>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        StripedLru(int capacity) {
+            int stripeCapacity = Math.max(1, capacity / CACHE_STRIPES);
+            this.stripes = new LinkedHashMap[CACHE_STRIPES];
+            for (int i = 0; i < CACHE_STRIPES; i++) {
+                stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                        return size() > stripeCapacity;
+                    }
+                };
+            }
+        }
+
+        V get(K key) {
+            LinkedHashMap<K, V> stripe = stripe(key);
+            synchronized (stripe) {
+                return stripe.get(key);
+            }
+        }
+
+        void put(K key, V value) {
+            LinkedHashMap<K, V> stripe = stripe(key);
+            synchronized (stripe) {
+                stripe.put(key, value);
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (LinkedHashMap<K, V> stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        private LinkedHashMap<K, V> stripe(K key) {
+            int h = key.hashCode();
+            return stripes[(h ^ (h >>> 16)) & (CACHE_STRIPES - 1)];
+        }
     }
-}
\ No newline at end of file
+}
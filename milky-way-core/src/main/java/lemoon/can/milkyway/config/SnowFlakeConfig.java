@@ -1,21 +1,24 @@
 package lemoon.can.milkyway.config;
 
 import lemoon.can.milkyway.common.utils.Snowflake;
+import lemoon.can.milkyway.infrastructure.inner.id.WorkerIdLease;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
+ * WorkerID从租约表领取，多实例部署时互不冲突；租约丢失期间拒绝生成ID
+ *
  * @author lemoon
  * @since 2025/5/1
  */
 @Configuration
 public class SnowFlakeConfig {
     @Bean
-    public Snowflake fileSnowFlake(){
-        return new Snowflake("FI", 1);
+    public Snowflake fileSnowFlake(WorkerIdLease workerIdLease){
+        return new Snowflake("FI", workerIdLease::workerId);
     }
     @Bean
-    public Snowflake FriendApplicationSnowFlake(){
-        return new Snowflake("FA", 1);
+    public Snowflake FriendApplicationSnowFlake(WorkerIdLease workerIdLease){
+        return new Snowflake("FA", workerIdLease::workerId);
     }
 }
@@ -10,7 +10,7 @@ import lemoon.can.milkyway.common.exception.SecurityErrorCode;
 import lemoon.can.milkyway.common.utils.security.HttpHeaderToken;
 import lemoon.can.milkyway.common.utils.security.JwtTokenProvider;
 import lemoon.can.milkyway.controller.Result;
-import lemoon.can.milkyway.infrastructure.repository.UserRepository;
+import lemoon.can.milkyway.infrastructure.inner.session.LoginSessionCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -26,7 +26,7 @@ import java.io.IOException;
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
     private final JwtTokenProvider tokenProvider;
     private final ObjectMapper objectMapper;
-    private final UserRepository userRepository;
+    private final LoginSessionCache loginSessionCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -41,8 +41,7 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             if (authentication != null) {
                 String userId = authentication.getName();
                 // 验证是否异地登录
-                String lastLoginToken = userRepository.findLastLoginTokenBy(userId);
-                if (!token.equals(lastLoginToken)) {
+                if (!loginSessionCache.isCurrent(userId, token)) {
                     throw new CustomSecurityException(SecurityErrorCode.ANOTHER_LOGIN);
                 }
             }
@@ -0,0 +1,44 @@
+package lemoon.can.milkyway.config.http;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lemoon.can.milkyway.common.enums.RateLimitAction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * multipart上传接口的限流过滤器
+ * <p>
+ * DispatcherServlet 在调用拦截器之前就会解析multipart请求体(写入临时文件)，拦截器限流时上传的开销已经产生；
+ * 过滤器在 DispatcherServlet 之前、认证过滤器之后执行，被限流的请求不读取请求体
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final RateLimitAction action;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return !HttpMethod.POST.matches(request.getMethod())
+                || contentType == null
+                || !contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (rateLimitInterceptor.tryAcquire(request, response, action)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
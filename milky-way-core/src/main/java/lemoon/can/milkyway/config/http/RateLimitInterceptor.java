@@ -0,0 +1,68 @@
+package lemoon.can.milkyway.config.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lemoon.can.milkyway.common.enums.RateLimitAction;
+import lemoon.can.milkyway.common.exception.ErrorCode;
+import lemoon.can.milkyway.common.utils.security.UserInfoHolder;
+import lemoon.can.milkyway.controller.Result;
+import lemoon.can.milkyway.infrastructure.inner.ratelimit.RateLimit;
+import lemoon.can.milkyway.infrastructure.inner.ratelimit.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * HTTP限流拦截器，处理标注了{@link RateLimit}的接口
+ * 在进入控制器之前直接写出响应，不经过异常处理器，避免被刷时产生大量异常日志
+ * <p>
+ * 拦截器在 DispatcherServlet 解析multipart请求体之后执行，上传接口由{@link RateLimitFilter}限流
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimit rateLimit = handlerMethod.getMethodAnnotation(RateLimit.class);
+        if (rateLimit == null) {
+            return true;
+        }
+        return tryAcquire(request, response, rateLimit.value());
+    }
+
+    /**
+     * 按当前用户(未登录时按IP)获取令牌，获取不到时写出429响应
+     *
+     * @return 是否放行
+     */
+    boolean tryAcquire(HttpServletRequest request, HttpServletResponse response, RateLimitAction action)
+            throws IOException {
+        String userId = UserInfoHolder.id();
+        String key = userId != null ? userId : request.getRemoteAddr();
+        if (rateLimiter.tryAcquire(key, action)) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rateLimiter.retryAfterSeconds(key, action)));
+        response.setContentType("application/json;charset=UTF-8");
+        Result<Void> result = Result.fail(ErrorCode.BUSY, action.getDescription() + "过于频繁，请稍后再试");
+        response.getWriter().write(objectMapper.writeValueAsString(result));
+        return false;
+    }
+}
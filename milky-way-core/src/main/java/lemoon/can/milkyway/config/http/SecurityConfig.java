@@ -1,10 +1,13 @@
 package lemoon.can.milkyway.config.http;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.DispatcherType;
+import lemoon.can.milkyway.common.utils.security.OffloadedPasswordEncoder;
 import lemoon.can.milkyway.common.utils.security.SecureId;
 import lemoon.can.milkyway.config.properties.SecurityProperties;
 import lemoon.can.milkyway.infrastructure.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,8 +21,6 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.frameoptions.XFrameOptionsHeaderWriter;
@@ -105,11 +106,19 @@ public class SecurityConfig {
      * @return PasswordEncoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        //随机盐值会在加密后的数据中存储
-        return new BCryptPasswordEncoder(12);
+    public OffloadedPasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:12}") int strength,
+                                           @Value("${security.password.threads:2}") int threads,
+                                           @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.password.timeout-ms:3000}") long timeoutMillis,
+                                           MeterRegistry meterRegistry) {
+        //随机盐值会在加密后的数据中存储；BCrypt在独立线程池中计算，避免占满请求线程
+        return new OffloadedPasswordEncoder(strength, threads, queueCapacity, timeoutMillis, meterRegistry);
     }
 
+    /**
+     * 不实现 UserDetailsPasswordService：认证流程内的重新编码会在登录请求中等待线程池，繁忙时让已校验通过的登录失败；
+     * 密码哈希升级由登录服务在后台尽力完成
+     */
     @Service
     public class UserDetailsServiceImpl implements UserDetailsService {
         @Override
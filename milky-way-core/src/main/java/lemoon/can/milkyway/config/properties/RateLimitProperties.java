@@ -0,0 +1,35 @@
+package lemoon.can.milkyway.config.properties;
+
+import lemoon.can.milkyway.common.enums.RateLimitAction;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 限流配置，未配置规则的动作不限流
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private Map<RateLimitAction, Rule> rules = new EnumMap<>(RateLimitAction.class);
+
+    @Data
+    public static class Rule {
+        /**
+         * 桶容量，即允许的突发请求数
+         */
+        private int capacity;
+        /**
+         * 每秒补充的令牌数
+         */
+        private double refillPerSecond;
+    }
+}
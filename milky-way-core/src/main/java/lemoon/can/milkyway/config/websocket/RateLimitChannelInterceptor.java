@@ -0,0 +1,83 @@
+package lemoon.can.milkyway.config.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lemoon.can.milkyway.common.enums.RateLimitAction;
+import lemoon.can.milkyway.common.exception.ErrorCode;
+import lemoon.can.milkyway.controller.Result;
+import lemoon.can.milkyway.facade.dto.MessageDTO;
+import lemoon.can.milkyway.facade.param.MessageSendParam;
+import lemoon.can.milkyway.infrastructure.inner.ratelimit.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * STOMP入站限流，超限的消息在进入业务线程池之前丢弃，并向发送者回执失败
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+@Slf4j
+public class RateLimitChannelInterceptor implements ChannelInterceptor {
+    /**
+     * 需要限流的目的地
+     */
+    private static final Map<String, RateLimitAction> DESTINATIONS = Map.of(
+            "/app/chat.sendMessage", RateLimitAction.SEND_MESSAGE
+    );
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * SimpMessagingTemplate依赖消息通道，而通道注册本拦截器，需延迟注入
+     */
+    public RateLimitChannelInterceptor(RateLimiter rateLimiter, ObjectMapper objectMapper,
+                                       @Lazy SimpMessagingTemplate messagingTemplate) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND) {
+            return message;
+        }
+        RateLimitAction action = DESTINATIONS.get(accessor.getDestination());
+        Principal principal = accessor.getUser();
+        if (action == null || principal == null || rateLimiter.tryAcquire(principal.getName(), action)) {
+            return message;
+        }
+
+        // 与发送失败相同的回执结构，客户端按clientMsgId匹配
+        MessageDTO failedMessageDTO = new MessageDTO();
+        if (message.getPayload() instanceof byte[] payload) {
+            try {
+                MessageSendParam param = objectMapper.readValue(payload, MessageSendParam.class);
+                failedMessageDTO.setChatId(param.getChatId());
+                failedMessageDTO.setClientMsgId(param.getClientMsgId());
+            } catch (IOException e) {
+                log.warn("解析被限流的消息失败", e);
+            }
+        }
+        Result<MessageDTO> failedResult = Result.fail(ErrorCode.BUSY, action.getDescription() + "过于频繁，请稍后再试");
+        failedResult.setData(failedMessageDTO);
+        messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/receipts", failedResult);
+        return null;
+    }
+}
@@ -4,6 +4,7 @@ import lemoon.can.milkyway.config.properties.SecurityProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -22,6 +23,7 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private final SecurityProperties securityProperties;
+    private final RateLimitChannelInterceptor rateLimitChannelInterceptor;
     /**
      * 声明此配置后，无需显示声明具体的订阅路径，就可接收相应前缀的订阅路径
      * 广播地址前缀，通常约定topic用作广播前缀，queue用作点对点前缀
@@ -57,4 +59,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         ;
     }
 
+    /**
+     * 客户端入站通道，限流在这里进行，被拒绝的消息不会占用业务线程
+     * @param registration 通道注册器
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(rateLimitChannelInterceptor);
+    }
+
 }
@@ -1,7 +1,9 @@
 package lemoon.can.milkyway.controller.ai;
 
+import lemoon.can.milkyway.common.enums.RateLimitAction;
 import lemoon.can.milkyway.facade.dto.SimpleMessageDTO;
 import lemoon.can.milkyway.facade.service.command.AiAssistantService;
+import lemoon.can.milkyway.infrastructure.inner.ratelimit.RateLimit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -23,12 +25,14 @@ public class AiAssistantController {
     private final AiAssistantService aiAssistantService;
 
     @PostMapping("/replyMessage")
+    @RateLimit(RateLimitAction.AI_REPLY)
     public String replyMessage(@RequestBody List<SimpleMessageDTO> messages,
                                @RequestParam String imitateUser) {
         return aiAssistantService.imitateUserReply(messages, imitateUser);
     }
 
     @GetMapping("/stream")
+    @RateLimit(RateLimitAction.AI_REPLY)
     public SseEmitter streamReply(@RequestParam String message) {
         SseEmitter emitter = aiAssistantService.friendReply(new ArrayList<>(), message);
         emitter.onCompletion(() -> log.info("[AI SSE] 完成: message={}", message));
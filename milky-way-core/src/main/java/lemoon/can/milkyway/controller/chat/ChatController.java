@@ -3,15 +3,20 @@ package lemoon.can.milkyway.controller.chat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import lemoon.can.milkyway.common.enums.RateLimitAction;
 import lemoon.can.milkyway.common.utils.security.UserInfoHolder;
 import lemoon.can.milkyway.controller.Result;
 import lemoon.can.milkyway.facade.dto.*;
 import lemoon.can.milkyway.facade.param.*;
 import lemoon.can.milkyway.facade.service.command.ChatService;
 import lemoon.can.milkyway.facade.service.query.ChatQueryService;
+import lemoon.can.milkyway.infrastructure.inner.ratelimit.RateLimit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -100,6 +105,14 @@ public class ChatController {
         return ResponseEntity.ok(Result.success(groupChats));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "批量查询聊天信息")
+    public ResponseEntity<Result<List<ChatInfoDTO>>> getChatInfos(@RequestBody @Valid ChatBatchQueryParam param) {
+        param.setOperatorUserId(UserInfoHolder.id());
+        List<ChatInfoDTO> chatInfos = chatQueryService.getChatInfos(param);
+        return ResponseEntity.ok(Result.success(chatInfos));
+    }
+
     @GetMapping
     @Operation(summary = "查询聊天列表")
     public ResponseEntity<Result<Slices<ChatInfoDTO>>> getChatList(@RequestParam(required = false) String lastMessageId,
@@ -113,17 +126,42 @@ public class ChatController {
     public ResponseEntity<Result<Slices<MessageInfoDTO>>> getChatMessages(@PathVariable String chatId,
                                                                           @RequestParam(required = false) String before,
                                                                           @RequestParam(required = false) String after,
+                                                                          @RequestParam(required = false) String around,
                                                                           @RequestParam Integer pageSize) {
         ChatMessagesQueryParam param = new ChatMessagesQueryParam();
         param.setChatId(chatId);
         param.setBefore(before);
         param.setAfter(after);
+        param.setAround(around);
         param.setPageSize(pageSize);
         param.setOperatorUserId(UserInfoHolder.id());
         Slices<MessageInfoDTO> slices = chatQueryService.getChatMessages(param);
         return ResponseEntity.ok(Result.success(slices));
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "搜索聊天消息")
+    public ResponseEntity<Result<Slices<MessageInfoDTO>>> searchMessages(@Valid MessageSearchParam param) {
+        param.setOperatorUserId(UserInfoHolder.id());
+        Slices<MessageInfoDTO> slices = chatQueryService.searchMessages(param);
+        return ResponseEntity.ok(Result.success(slices));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "导出聊天消息")
+    public ResponseEntity<StreamingResponseBody> exportMessages(@Valid MessageExportParam param) {
+        param.setOperatorUserId(UserInfoHolder.id());
+        chatQueryService.prepareExport(param);
+        String fileName = "chat-" + param.getChatId() + "." + param.getFormat().getExtension() + (param.isGzip() ? ".gz" : "");
+        StreamingResponseBody body = out -> chatQueryService.exportMessages(param, out);
+        return ResponseEntity.ok()
+                .contentType(param.isGzip()
+                        ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(param.getFormat().getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     @PatchMapping("/read")
     @Operation(summary = "标记消息已读")
     public ResponseEntity<Result<Void>> read(@RequestBody @Valid MessageReadParam param) {
@@ -134,6 +172,7 @@ public class ChatController {
 
     @GetMapping("ai/reply/{chatId}")
     @Operation(summary = "AI回复建议")
+    @RateLimit(RateLimitAction.AI_REPLY)
     public ResponseEntity<Result<String>> aiReply(@PathVariable String chatId){
         String reply = chatService.aiReply(chatId, UserInfoHolder.id());
         return ResponseEntity.ok(Result.success(reply));
@@ -7,9 +7,11 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lemoon.can.milkyway.common.utils.security.UserInfoHolder;
 import lemoon.can.milkyway.controller.Result;
+import lemoon.can.milkyway.facade.dto.CommentDTO;
 import lemoon.can.milkyway.facade.dto.MomentDTO;
 import lemoon.can.milkyway.facade.dto.Slices;
 import lemoon.can.milkyway.facade.param.CommentParam;
+import lemoon.can.milkyway.facade.param.MomentFields;
 import lemoon.can.milkyway.facade.param.PublishParam;
 import lemoon.can.milkyway.facade.service.command.MomentService;
 import lemoon.can.milkyway.facade.service.query.MomentQueryService;
@@ -70,16 +72,20 @@ public class MomentController {
     @GetMapping("/myFriends")
     @Operation(summary = "查询好友动态")
     public ResponseEntity<Result<Slices<MomentDTO>>> myFriendsMoments(@RequestParam String lastId,
-                                                             @RequestParam @NotNull Integer pageSize) {
-        Slices<MomentDTO> slices = momentQueryService.listFriendMoments(UserInfoHolder.id(), lastId, pageSize);
+                                                             @RequestParam @NotNull Integer pageSize,
+                                                             @RequestParam(required = false) String fields) {
+        Slices<MomentDTO> slices = momentQueryService.listFriendMoments(UserInfoHolder.id(), lastId, pageSize,
+                MomentFields.parse(fields));
         return ResponseEntity.ok(Result.success(slices));
     }
 
     @GetMapping("/my")
     @Operation(summary = "查询我的动态")
     public ResponseEntity<Result<Slices<MomentDTO>>> myMoments(@RequestParam String lastId,
-                                                             @RequestParam @NotNull Integer pageSize) {
-        Slices<MomentDTO> slices = momentQueryService.listPersonalMoments(UserInfoHolder.id(), lastId, pageSize);
+                                                             @RequestParam @NotNull Integer pageSize,
+                                                             @RequestParam(required = false) String fields) {
+        Slices<MomentDTO> slices = momentQueryService.listPersonalMoments(UserInfoHolder.id(), lastId, pageSize,
+                MomentFields.parse(fields));
         return ResponseEntity.ok(Result.success(slices));
     }
 
@@ -87,15 +93,36 @@ public class MomentController {
     @Operation(summary = "查询个人动态")
     public ResponseEntity<Result<Slices<MomentDTO>>> personalMoments(@RequestParam @NotBlank String userId,
                                                                      @RequestParam String lastId,
-                                                                     @RequestParam @NotNull Integer pageSize) {
-        Slices<MomentDTO> slices = momentQueryService.listPersonalMoments(userId, lastId, pageSize);
+                                                                     @RequestParam @NotNull Integer pageSize,
+                                                                     @RequestParam(required = false) String fields) {
+        Slices<MomentDTO> slices = momentQueryService.listPersonalMoments(userId, lastId, pageSize,
+                MomentFields.parse(fields));
         return ResponseEntity.ok(Result.success(slices));
     }
 
     @GetMapping("/{momentId}")
     @Operation(summary = "查询动态详情")
-    public ResponseEntity<Result<MomentDTO>> getMoment(@PathVariable String momentId) {
-        MomentDTO moment = momentQueryService.getMoment(momentId);
+    public ResponseEntity<Result<MomentDTO>> getMoment(@PathVariable String momentId,
+                                                       @RequestParam(required = false) String fields) {
+        MomentDTO moment = momentQueryService.getMoment(momentId, MomentFields.parse(fields));
         return ResponseEntity.ok(Result.success(moment));
     }
+
+    @GetMapping("/{momentId}/comments")
+    @Operation(summary = "分页查询动态评论")
+    public ResponseEntity<Result<Slices<CommentDTO>>> comments(@PathVariable String momentId,
+                                                               @RequestParam(required = false) Long lastId,
+                                                               @RequestParam @NotNull Integer pageSize) {
+        Slices<CommentDTO> slices = momentQueryService.listComments(momentId, lastId, pageSize);
+        return ResponseEntity.ok(Result.success(slices));
+    }
+
+    @GetMapping("/comments/{commentId}/replies")
+    @Operation(summary = "分页查询评论回复")
+    public ResponseEntity<Result<Slices<CommentDTO>>> replies(@PathVariable Long commentId,
+                                                              @RequestParam(required = false) Long lastId,
+                                                              @RequestParam @NotNull Integer pageSize) {
+        Slices<CommentDTO> slices = momentQueryService.listReplies(commentId, lastId, pageSize);
+        return ResponseEntity.ok(Result.success(slices));
+    }
 }
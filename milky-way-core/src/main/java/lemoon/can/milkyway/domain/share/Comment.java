@@ -38,6 +38,11 @@ public class Comment {
      */
     @Setter
     private Long parentCommentId;
+    /**
+     * 所属顶级评论ID，顶级评论为空
+     */
+    @Setter
+    private Long rootCommentId;
     /**
      * 评论内容
      */
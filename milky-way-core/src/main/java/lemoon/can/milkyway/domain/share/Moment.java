@@ -50,12 +50,14 @@ public class Moment {
     @Setter
     private String location;
     /**
-     * 点赞数
+     * 点赞数，由计数器以增量方式写回，实体保存时不覆盖
      */
+    @Column(updatable = false)
     private Integer likeCounts = 0;
     /**
-     * 评论数
+     * 评论数，由计数器以增量方式写回，实体保存时不覆盖
      */
+    @Column(updatable = false)
     private Integer commentCounts = 0;
 
     @CreationTimestamp
@@ -67,20 +69,4 @@ public class Moment {
         this.medias = medias;
         this.publishUserId = publishUserId;
     }
-
-    public void addLike() {
-        this.likeCounts++;
-    }
-
-    public void removeLike() {
-        this.likeCounts--;
-    }
-
-    public void addComment() {
-        this.commentCounts++;
-    }
-
-    public void removeComment() {
-        this.commentCounts--;
-    }
 }
@@ -49,7 +49,12 @@ public class CommentDTO {
     private SimpleUserDTO replyUser;
     
     /**
-     * 回复列表
+     * 回复数(仅顶级评论)
+     */
+    private Integer replyCounts;
+
+    /**
+     * 回复列表(顶级评论只带前几条，其余分页查询)
      */
     private List<CommentDTO> replies = new ArrayList<>();
 }
@@ -0,0 +1,28 @@
+package lemoon.can.milkyway.facade.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 点赞汇总通知
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+public class LikeSummaryDTO {
+    private MomentDescriptionDTO momentDescription;
+    /**
+     * 窗口内新增的点赞数
+     */
+    private Integer count;
+    /**
+     * 最近点赞的用户(最新的在前)
+     */
+    private List<SimpleUserDTO> latestUsers;
+    /**
+     * 最近一次点赞时间
+     */
+    private String createTime;
+}
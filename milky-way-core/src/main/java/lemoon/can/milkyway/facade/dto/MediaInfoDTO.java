@@ -0,0 +1,23 @@
+package lemoon.can.milkyway.facade.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 临时访问链接对应的媒体信息
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+@NoArgsConstructor
+public class MediaInfoDTO {
+    /**
+     * 文件名称，文件元信息不存在时为null
+     */
+    private String fileName;
+    /**
+     * 视频封面图访问链接，与原链接同时过期，非视频或无封面时为null
+     */
+    private String videoCoverImageUrl;
+}
@@ -28,7 +28,12 @@ public class MomentDTO {
     private List<SimpleUserDTO> likeUsers;
     
     /**
-     * 评论列表
+     * 评论列表(第一页顶级评论，各带前几条回复)
      */
     private List<CommentDTO> comments;
+
+    /**
+     * 是否还有更多顶级评论
+     */
+    private Boolean hasMoreComments;
 }
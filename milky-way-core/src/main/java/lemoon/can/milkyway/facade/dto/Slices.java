@@ -12,12 +12,25 @@ import java.util.List;
 @Data
 public class Slices<T> implements Serializable {
     Boolean hasNext;
+    /**
+     * 是否还有更早的数据，仅双向分页时返回
+     */
+    Boolean hasPrev;
     Integer size;
     List<T> items;
+    /**
+     * 下一页的游标，仅在不能以最后一条数据作为游标时返回(如搜索达到扫描上限时本页不足一页)
+     */
+    String nextCursor;
 
     public Slices(List<T> items, Boolean hasNext) {
         this.items = items;
         this.hasNext = hasNext;
         this.size = items.size();
     }
+
+    public Slices(List<T> items, Boolean hasPrev, Boolean hasNext) {
+        this(items, hasNext);
+        this.hasPrev = hasPrev;
+    }
 }
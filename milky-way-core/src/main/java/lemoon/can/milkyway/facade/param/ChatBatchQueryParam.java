@@ -0,0 +1,32 @@
+package lemoon.can.milkyway.facade.param;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+public class ChatBatchQueryParam implements Serializable {
+    /**
+     * 单次最多查询的聊天数
+     */
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * 操作者用户ID
+     */
+    private String operatorUserId;
+
+    /**
+     * 聊天ID列表
+     */
+    @NotEmpty(message = "聊天ID不能为空")
+    @Size(max = MAX_SIZE, message = "单次最多查询" + MAX_SIZE + "个聊天")
+    private List<String> chatIds;
+}
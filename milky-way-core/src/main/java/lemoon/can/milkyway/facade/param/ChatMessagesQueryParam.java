@@ -22,6 +22,10 @@ public class ChatMessagesQueryParam implements Serializable {
      * 分页游标，查询在此ID之后的消息
      */
     private String after;
+    /**
+     * 定位消息ID，查询该消息及其前后各 pageSize 条消息，优先于 before 和 after
+     */
+    private String around;
     /**
      * 每页大小
      */
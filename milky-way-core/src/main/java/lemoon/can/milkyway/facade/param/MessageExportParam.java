@@ -0,0 +1,33 @@
+package lemoon.can.milkyway.facade.param;
+
+import jakarta.validation.constraints.NotBlank;
+import lemoon.can.milkyway.common.enums.ExportFormat;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+public class MessageExportParam implements Serializable {
+    /**
+     * 聊天ID
+     */
+    @NotBlank(message = "聊天ID不能为空")
+    private String chatId;
+    /**
+     * 导出格式
+     */
+    private ExportFormat format = ExportFormat.NDJSON;
+    /**
+     * 是否gzip压缩
+     */
+    private boolean gzip;
+
+    /**
+     * 操作者用户ID
+     */
+    private String operatorUserId;
+}
@@ -0,0 +1,38 @@
+package lemoon.can.milkyway.facade.param;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+public class MessageSearchParam implements Serializable {
+    /**
+     * 关键词，多个关键词以空格分隔，全部命中才返回
+     */
+    @NotBlank(message = "关键词不能为空")
+    @Size(max = 64, message = "关键词不能超过64个字符")
+    private String keyword;
+    /**
+     * 聊天ID，为空时搜索用户所在的全部聊天
+     */
+    private String chatId;
+    /**
+     * 分页游标，查询在此ID之前的消息
+     */
+    private String before;
+    /**
+     * 每页大小
+     */
+    private Integer pageSize;
+
+    /**
+     * 操作者用户ID
+     */
+    private String operatorUserId;
+}
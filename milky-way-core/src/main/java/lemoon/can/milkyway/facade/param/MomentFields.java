@@ -0,0 +1,117 @@
+package lemoon.can.milkyway.facade.param;
+
+import lemoon.can.milkyway.common.exception.BusinessException;
+import lemoon.can.milkyway.common.exception.ErrorCode;
+import org.springframework.util.StringUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 动态查询返回的字段选择
+ * <p>
+ * 格式：逗号分隔的 MomentDTO 字段名，评论可带数量，如 {@code id,text,medias,likeCounts,comments:limit=3}；
+ * 为空时返回全部字段。id 始终返回(分页游标)，未选择的点赞用户、评论不会查询
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+public final class MomentFields {
+    public static final String USER = "user";
+    public static final String CONTENT_TYPE = "contentType";
+    public static final String TEXT = "text";
+    public static final String MEDIAS = "medias";
+    public static final String LOCATION = "location";
+    public static final String LIKE_COUNTS = "likeCounts";
+    public static final String COMMENT_COUNTS = "commentCounts";
+    public static final String CREATE_TIME = "createTime";
+    public static final String LIKE_USERS = "likeUsers";
+    /**
+     * 评论，同时决定 hasMoreComments 是否返回
+     */
+    public static final String COMMENTS = "comments";
+
+    private static final String ID = "id";
+    private static final String LIMIT_PREFIX = "limit=";
+    private static final Set<String> NAMES = Set.of(ID, USER, CONTENT_TYPE, TEXT, MEDIAS, LOCATION,
+            LIKE_COUNTS, COMMENT_COUNTS, CREATE_TIME, LIKE_USERS, COMMENTS);
+
+    /**
+     * 全部字段
+     */
+    public static final MomentFields ALL = new MomentFields(null, null);
+
+    /**
+     * 选择的字段，为null表示全部
+     */
+    private final Set<String> names;
+    /**
+     * 评论数量，为null表示默认(评论第一页)
+     */
+    private final Integer commentLimit;
+
+    private MomentFields(Set<String> names, Integer commentLimit) {
+        this.names = names;
+        this.commentLimit = commentLimit;
+    }
+
+    /**
+     * 解析字段选择
+     *
+     * @param value 字段选择，为空时返回全部字段
+     */
+    public static MomentFields parse(String value) {
+        if (!StringUtils.hasText(value)) {
+            return ALL;
+        }
+        Set<String> names = new HashSet<>();
+        Integer commentLimit = null;
+        for (String item : value.split(",")) {
+            String[] parts = item.trim().split(":", 2);
+            String name = parts[0].trim();
+            if (!NAMES.contains(name)) {
+                throw new BusinessException(ErrorCode.INVALID_PARAM, "不支持的字段: " + name);
+            }
+            if (parts.length > 1) {
+                if (!COMMENTS.equals(name)) {
+                    throw new BusinessException(ErrorCode.INVALID_PARAM, "字段不支持参数: " + name);
+                }
+                commentLimit = parseLimit(parts[1].trim());
+            }
+            names.add(name);
+        }
+        return new MomentFields(names, commentLimit);
+    }
+
+    /**
+     * 是否返回该字段
+     *
+     * @param name 字段名，使用本类常量
+     */
+    public boolean includes(String name) {
+        return names == null || names.contains(name);
+    }
+
+    /**
+     * 评论数量
+     *
+     * @return 为null时取评论第一页
+     */
+    public Integer commentLimit() {
+        return commentLimit;
+    }
+
+    private static Integer parseLimit(String option) {
+        if (option.startsWith(LIMIT_PREFIX)) {
+            try {
+                int limit = Integer.parseInt(option.substring(LIMIT_PREFIX.length()));
+                if (limit >= 0) {
+                    return limit;
+                }
+            } catch (NumberFormatException ignored) {
+                // 统一按参数错误处理
+            }
+        }
+        throw new BusinessException(ErrorCode.INVALID_PARAM, "评论参数格式错误: " + option);
+    }
+}
@@ -2,9 +2,13 @@ package lemoon.can.milkyway.facade.service.command;
 
 import lemoon.can.milkyway.facade.dto.FileDTO;
 import lemoon.can.milkyway.facade.dto.FileInfoDTO;
+import lemoon.can.milkyway.facade.dto.MediaInfoDTO;
 import lemoon.can.milkyway.facade.param.FileParam;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * @author lemoon
  * @since 2025/5/1
@@ -84,6 +88,14 @@ public interface FileService {
      */
     String getVideoCoverImageAccessUrl(String temporaryAccessUrl);
 
+    /**
+     * 批量解析临时访问链接，每个链接只校验一次签名，文件元信息一次查询取回
+     *
+     * @param temporaryAccessUrls 临时访问链接
+     * @return 链接 -> 媒体信息，已过期或无法解析的链接不在结果中
+     */
+    Map<String, MediaInfoDTO> resolveMedia(Collection<String> temporaryAccessUrls);
+
     /**
      *  是否过期
      * @param temporaryAccessUrl 临时访问链接
@@ -4,8 +4,13 @@ import lemoon.can.milkyway.facade.dto.ChatInfoDTO;
 import lemoon.can.milkyway.facade.dto.MessageInfoDTO;
 import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
 import lemoon.can.milkyway.facade.dto.Slices;
+import lemoon.can.milkyway.facade.param.ChatBatchQueryParam;
 import lemoon.can.milkyway.facade.param.ChatMessagesQueryParam;
+import lemoon.can.milkyway.facade.param.MessageExportParam;
+import lemoon.can.milkyway.facade.param.MessageSearchParam;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -37,6 +42,13 @@ public interface ChatQueryService {
      */
     Slices<ChatInfoDTO> getChatList(String userId, String lastMessageId, Integer pageSize);
 
+    /**
+     * 批量查询聊天信息
+     * @param param 查询参数
+     * @return 聊天信息列表，顺序与入参一致，用户不在其中的聊天将被忽略
+     */
+    List<ChatInfoDTO> getChatInfos(ChatBatchQueryParam param);
+
     /**
      * 获取聊天消息列表
      * @param param 查询参数
@@ -44,6 +56,26 @@ public interface ChatQueryService {
      */
     Slices<MessageInfoDTO> getChatMessages(ChatMessagesQueryParam param);
 
+    /**
+     * 搜索文字消息，每次请求扫描的候选有上限，达到上限时本页可能不足一页，此时返回 nextCursor 作为下一页的 before
+     * @param param 查询参数
+     * @return 按消息ID倒序的消息列表
+     */
+    Slices<MessageInfoDTO> searchMessages(MessageSearchParam param);
+
+    /**
+     * 校验导出权限，导出名额已用完时直接拒绝
+     * @param param 导出参数
+     */
+    void prepareExport(MessageExportParam param);
+
+    /**
+     * 流式导出聊天消息，导出期间占用一个导出名额
+     * @param param 导出参数
+     * @param out 输出流
+     */
+    void exportMessages(MessageExportParam param, OutputStream out) throws IOException;
+
     /**
      * 获取聊天室成员列表
      * @param chatId 聊天室ID
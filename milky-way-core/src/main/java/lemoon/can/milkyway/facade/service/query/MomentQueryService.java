@@ -1,7 +1,9 @@
 package lemoon.can.milkyway.facade.service.query;
 
+import lemoon.can.milkyway.facade.dto.CommentDTO;
 import lemoon.can.milkyway.facade.dto.MomentDTO;
 import lemoon.can.milkyway.facade.dto.Slices;
+import lemoon.can.milkyway.facade.param.MomentFields;
 
 /**
  * @author lemoon
@@ -9,27 +11,48 @@ import lemoon.can.milkyway.facade.dto.Slices;
  */
 public interface MomentQueryService {
     /**
-     * 查询用户动态(评论全部查出)
+     * 查询用户动态(评论只带第一页)
      * @param userId
      * @param lastId
      * @param pageSize
+     * @param fields 返回的字段，未选择的点赞用户、评论不查询
      * @return
      */
-    Slices<MomentDTO> listFriendMoments(String userId, String lastId, int pageSize);
+    Slices<MomentDTO> listFriendMoments(String userId, String lastId, int pageSize, MomentFields fields);
 
     /**
-     * 查询个人动态(评论全部查出)
+     * 查询个人动态(评论只带第一页)
      * @param userId
      * @param lastId
      * @param pageSize
+     * @param fields 返回的字段，未选择的点赞用户、评论不查询
      * @return
      */
-    Slices<MomentDTO> listPersonalMoments(String userId, String lastId, int pageSize);
+    Slices<MomentDTO> listPersonalMoments(String userId, String lastId, int pageSize, MomentFields fields);
 
     /**
      * 查询动态详情
      * @param momentId 动态ID
+     * @param fields 返回的字段，未选择的点赞用户、评论不查询
      * @return
      */
-    MomentDTO getMoment(String momentId);
+    MomentDTO getMoment(String momentId, MomentFields fields);
+
+    /**
+     * 分页查询动态的顶级评论，每条带前几条回复
+     * @param momentId 动态ID
+     * @param lastId 上一页最后一条顶级评论ID，为空时查第一页
+     * @param pageSize 数量，最多50
+     * @return
+     */
+    Slices<CommentDTO> listComments(String momentId, Long lastId, int pageSize);
+
+    /**
+     * 分页查询顶级评论下的回复
+     * @param commentId 顶级评论ID
+     * @param lastId 上一页最后一条回复ID，为空时从头开始
+     * @param pageSize 数量，最多50
+     * @return
+     */
+    Slices<CommentDTO> listReplies(Long commentId, Long lastId, int pageSize);
 }
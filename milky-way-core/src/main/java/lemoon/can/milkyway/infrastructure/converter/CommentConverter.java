@@ -5,6 +5,7 @@ import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
 import lemoon.can.milkyway.infrastructure.converter.helper.DateTimeConverterHelper;
 import lemoon.can.milkyway.infrastructure.repository.dos.CommentDO;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
 import java.util.*;
@@ -40,24 +41,29 @@ public abstract class CommentConverter {
         return roots;
     }
     /**
-     * 将 CommentDO 转换为 CommentDTO
+     * 将顶级评论与回复组装为评论串，回复挂到所属顶级评论下
      *
-     * @param comments 评论数据对象
-     * @return 评论数据传输对象
+     * @param topComments 顶级评论
+     * @param replies     回复，所属顶级评论不在列表中的忽略
+     * @return 评论串，顺序与顶级评论一致
      */
-    public List<CommentDTO> buildSimpleArray(List<CommentDO> comments) {
-        Map<Long, SimpleUserDTO> commentUserMap = new HashMap<>();
-        List<CommentDTO> commentDTOS = new ArrayList<>();
-        for (CommentDO commentDO : comments) {
-            CommentDTO comment = toDto(commentDO);
-            commentUserMap.putIfAbsent(comment.getId(), comment.getUser());
-            if (Optional.ofNullable(comment.getParentCommentId()).isPresent()) {
-                comment.setReplyUser(commentUserMap.get(comment.getParentCommentId()));
+    public List<CommentDTO> buildThreads(List<CommentDO> topComments, List<CommentDO> replies) {
+        Map<Long, CommentDTO> roots = new LinkedHashMap<>();
+        for (CommentDO commentDO : topComments) {
+            roots.put(commentDO.getId(), toDto(commentDO));
+        }
+        for (CommentDO reply : replies) {
+            CommentDTO root = roots.get(reply.getRootCommentId());
+            if (root != null) {
+                root.getReplies().add(toDto(reply));
             }
-            commentDTOS.add(comment);
         }
-        return commentDTOS;
+        return new ArrayList<>(roots.values());
     }
 
+    /**
+     * 动态ID为内部ID，不对外输出
+     */
+    @Mapping(target = "momentId", ignore = true)
     public abstract CommentDTO toDto(CommentDO commentDO);
 }
@@ -3,6 +3,7 @@ package lemoon.can.milkyway.infrastructure.converter;
 import lemoon.can.milkyway.common.enums.MessageType;
 import lemoon.can.milkyway.domain.chat.Message;
 import lemoon.can.milkyway.domain.user.User;
+import lemoon.can.milkyway.facade.dto.MediaInfoDTO;
 import lemoon.can.milkyway.facade.dto.MessageMetaDTO;
 import lemoon.can.milkyway.facade.dto.MessageDTO;
 import lemoon.can.milkyway.facade.dto.MessageInfoDTO;
@@ -17,6 +18,9 @@ import org.mapstruct.ReportingPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author lemoon
@@ -71,6 +75,26 @@ public abstract class MessageConverter {
         return messageInfoDTO;
     }
 
+    /**
+     * 批量转换一页消息，页内的媒体链接只解析一次，文件元信息一次查询取回
+     *
+     * @param messages 消息列表
+     * @return 顺序与入参一致的消息列表
+     */
+    public List<MessageInfoDTO> toMessageInfoDTOs(List<MessageDO> messages) {
+        List<String> mediaContents = messages.stream()
+                .filter(message -> needFileMeta(message.getType()))
+                .map(MessageDO::getContent)
+                .toList();
+        Map<String, MediaInfoDTO> mediaInfos = mediaContents.isEmpty() ? Map.of() : fileService.resolveMedia(mediaContents);
+        List<MessageInfoDTO> messageInfoDTOS = new ArrayList<>(messages.size());
+        for (MessageDO message : messages) {
+            MessageInfoDTO messageInfoDTO = innerToMessageInfoDTO(message);
+            messageInfoDTO.setMeta(messageMeta(message.getType(), message.getContent(), mediaInfos));
+            messageInfoDTOS.add(messageInfoDTO);
+        }
+        return messageInfoDTOS;
+    }
 
     @Mapping(target = "id", source = "id", qualifiedByName = "encodeMessageId")
     @Mapping(target = "chatId", source = "chatId", qualifiedByName = "encodeChatId")
@@ -95,15 +119,36 @@ public abstract class MessageConverter {
      * @return 消息元数据
      */
     public MessageMetaDTO messageMeta(MessageType messageType, String content) {
+        Map<String, MediaInfoDTO> mediaInfos = needFileMeta(messageType) && content != null
+                ? fileService.resolveMedia(List.of(content))
+                : Map.of();
+        return messageMeta(messageType, content, mediaInfos);
+    }
+
+    /**
+     * 视频和文件需要查询文件元信息，其余媒体只需校验链接
+     */
+    private boolean needFileMeta(MessageType messageType) {
+        return messageType == MessageType.VIDEO || messageType == MessageType.FILE;
+    }
+
+    /**
+     * 根据已解析的媒体信息创建消息元数据
+     *
+     * @param messageType 消息类型
+     * @param content     消息内容
+     * @param mediaInfos  视频和文件链接 -> 媒体信息，不包含已过期的链接
+     * @return 消息元数据
+     */
+    private MessageMetaDTO messageMeta(MessageType messageType, String content, Map<String, MediaInfoDTO> mediaInfos) {
         MessageMetaDTO messageMeta = new MessageMetaDTO();
         if (messageType == null) {
             return messageMeta;
         }
         messageMeta.setType(messageType);
-        if(messageType.isMedia()) {
-            if(fileService.expire(content)) {
-                return messageMeta;
-            }
+        MediaInfoDTO mediaInfo = needFileMeta(messageType) ? mediaInfos.get(content) : null;
+        if (needFileMeta(messageType) ? mediaInfo == null : messageType.isMedia() && fileService.expire(content)) {
+            return messageMeta;
         }
         messageMeta.setContent(content);
         switch (messageType) {
@@ -113,11 +158,11 @@ public abstract class MessageConverter {
                 break;
             case VIDEO:
                 messageMeta.setContent("[" + messageType.getDesc() + "]");
-                messageMeta.setMedia(fileService.getVideoCoverImageAccessUrl(content));
+                messageMeta.setMedia(mediaInfo.getVideoCoverImageUrl());
                 messageMeta.setVideoUrl(content);
                 break;
             case FILE:
-                messageMeta.setContent(fileService.getFileName(content));
+                messageMeta.setContent(mediaInfo.getFileName());
                 messageMeta.setMedia(content);
                 break;
         }
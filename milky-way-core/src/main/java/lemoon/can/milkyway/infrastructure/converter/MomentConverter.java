@@ -1,22 +1,26 @@
 package lemoon.can.milkyway.infrastructure.converter;
 
 import lemoon.can.milkyway.domain.share.Moment;
+import lemoon.can.milkyway.facade.dto.CommentDTO;
 import lemoon.can.milkyway.facade.dto.MomentDTO;
 import lemoon.can.milkyway.facade.dto.MomentDescriptionDTO;
 import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
+import lemoon.can.milkyway.facade.param.MomentFields;
 import lemoon.can.milkyway.infrastructure.converter.helper.DateTimeConverterHelper;
 import lemoon.can.milkyway.infrastructure.converter.helper.SecureIdConverterHelper;
-import lemoon.can.milkyway.infrastructure.repository.dos.CommentDO;
+import lemoon.can.milkyway.infrastructure.inner.comment.CommentPages;
+import lemoon.can.milkyway.infrastructure.repository.dos.LikeUserDO;
 import lemoon.can.milkyway.infrastructure.repository.dos.MomentDO;
-import lemoon.can.milkyway.infrastructure.repository.mapper.CommentMapper;
 import lemoon.can.milkyway.infrastructure.repository.mapper.LikeMapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * @author lemoon
@@ -29,9 +33,7 @@ public abstract class MomentConverter {
     @Autowired
     protected LikeMapper likeMapper;
     @Autowired
-    protected CommentMapper commentMapper;
-    @Autowired
-    protected CommentConverter commentConverter;
+    protected CommentPages commentPages;
 
     @Mapping(target = "id", source = "id", qualifiedByName = "encodeMomentId")
     protected abstract MomentDTO innerToMomentDTO(MomentDO momentDO);
@@ -43,25 +45,103 @@ public abstract class MomentConverter {
     public abstract MomentDescriptionDTO toMomentDescriptionDTO(MomentDO momentDO);
 
     public MomentDTO toMomentDTO(MomentDO momentDO) {
-        MomentDTO dto = innerToMomentDTO(momentDO);
-        SimpleUserDTO userDTO = new SimpleUserDTO();
-        userDTO.setId(momentDO.getUserId());
-        userDTO.setNickName(momentDO.getUserNickName());
-        userDTO.setAvatar(momentDO.getUserAvatar());
-        dto.setUser(userDTO);
+        return toMomentDTO(momentDO, MomentFields.ALL);
+    }
+
+    public MomentDTO toMomentDTO(MomentDO momentDO, MomentFields fields) {
+        return toMomentDTOs(List.of(momentDO), fields).get(0);
+    }
+
+    /**
+     * 批量转换，返回全部字段
+     */
+    public List<MomentDTO> toMomentDTOs(List<MomentDO> momentDOS) {
+        return toMomentDTOs(momentDOS, MomentFields.ALL);
+    }
+
+    /**
+     * 批量转换，点赞用一次查询加载整页数据后按动态分组，评论取各动态的第一页(缓存未命中的合并查询)，查询次数与页大小无关；
+     * 未选择的点赞用户、评论不查询，未选择的字段置空(响应中不输出)
+     */
+    public List<MomentDTO> toMomentDTOs(List<MomentDO> momentDOS, MomentFields fields) {
+        if (momentDOS.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> momentIds = momentDOS.stream().map(MomentDO::getId).toList();
 
         // 查询点赞用户信息
-        dto.setLikeUsers(likeMapper.selectLikeUsers(momentDO.getId()));
+        Map<Long, List<SimpleUserDTO>> likeUsers = new HashMap<>();
+        boolean withLikeUsers = fields.includes(MomentFields.LIKE_USERS);
+        if (withLikeUsers) {
+            for (LikeUserDO like : likeMapper.selectLikeUsersByMomentIds(momentIds)) {
+                SimpleUserDTO user = new SimpleUserDTO();
+                user.setId(like.getUserId());
+                user.setNickName(like.getUserNickName());
+                user.setAvatar(like.getUserAvatar());
+                likeUsers.computeIfAbsent(like.getMomentId(), k -> new ArrayList<>()).add(user);
+            }
+        }
 
-        // 查询评论信息
-        List<CommentDO> comments = commentMapper.simpleSelectComments(momentDO.getId());
-        dto.setComments(commentConverter.buildSimpleArray(comments));
-        return dto;
+        // 查询评论第一页，数量超过第一页的部分由评论分页接口加载
+        Integer commentLimit = fields.commentLimit();
+        boolean withComments = fields.includes(MomentFields.COMMENTS) && (commentLimit == null || commentLimit > 0);
+        Map<Long, CommentPages.CommentPage> comments = withComments ? commentPages.firstPages(momentIds) : Map.of();
+
+        List<MomentDTO> dtos = new ArrayList<>(momentDOS.size());
+        for (MomentDO momentDO : momentDOS) {
+            MomentDTO dto = innerToMomentDTO(momentDO);
+            if (fields.includes(MomentFields.USER)) {
+                SimpleUserDTO userDTO = new SimpleUserDTO();
+                userDTO.setId(momentDO.getUserId());
+                userDTO.setNickName(momentDO.getUserNickName());
+                userDTO.setAvatar(momentDO.getUserAvatar());
+                dto.setUser(userDTO);
+            }
+            if (withLikeUsers) {
+                dto.setLikeUsers(likeUsers.getOrDefault(momentDO.getId(), new ArrayList<>()));
+            }
+            if (withComments) {
+                CommentPages.CommentPage page = comments.get(momentDO.getId());
+                List<CommentDTO> pageComments = page.comments();
+                if (commentLimit != null && pageComments.size() > commentLimit) {
+                    // 第一页可能来自共享缓存，复制后截取
+                    dto.setComments(new ArrayList<>(pageComments.subList(0, commentLimit)));
+                    dto.setHasMoreComments(true);
+                } else {
+                    dto.setComments(pageComments);
+                    dto.setHasMoreComments(page.hasNext());
+                }
+            } else if (fields.includes(MomentFields.COMMENTS)) {
+                dto.setComments(new ArrayList<>());
+                dto.setHasMoreComments(momentDO.getCommentCounts() != null && momentDO.getCommentCounts() > 0);
+            }
+            clearUnselected(dto, fields);
+            dtos.add(dto);
+        }
+        return dtos;
     }
 
-    public List<MomentDTO> toMomentDTOs(List<MomentDO> momentDOS) {
-        return momentDOS.stream()
-                .map(this::toMomentDTO)
-                .collect(Collectors.toList());
+    private static void clearUnselected(MomentDTO dto, MomentFields fields) {
+        if (!fields.includes(MomentFields.CONTENT_TYPE)) {
+            dto.setContentType(null);
+        }
+        if (!fields.includes(MomentFields.TEXT)) {
+            dto.setText(null);
+        }
+        if (!fields.includes(MomentFields.MEDIAS)) {
+            dto.setMedias(null);
+        }
+        if (!fields.includes(MomentFields.LOCATION)) {
+            dto.setLocation(null);
+        }
+        if (!fields.includes(MomentFields.LIKE_COUNTS)) {
+            dto.setLikeCounts(null);
+        }
+        if (!fields.includes(MomentFields.COMMENT_COUNTS)) {
+            dto.setCommentCounts(null);
+        }
+        if (!fields.includes(MomentFields.CREATE_TIME)) {
+            dto.setCreateTime(null);
+        }
     }
 }
@@ -5,6 +5,8 @@ import lombok.RequiredArgsConstructor;
 import org.mapstruct.Named;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * @author lemoon
  * @since 2025/6/27
@@ -26,6 +28,10 @@ public class SecureIdConverterHelper {
         return secureId.simpleDecode(encodedId, secureId.getChatSalt());
     }
 
+    public List<Long> decodeChatIds(List<String> encodedIds) {
+        return secureId.simpleDecode(encodedIds, secureId.getChatSalt());
+    }
+
     @Named("encodeFriendApplicationId")
     public String encodeFriendApplicationId(Long id) {
         if (id == null) {
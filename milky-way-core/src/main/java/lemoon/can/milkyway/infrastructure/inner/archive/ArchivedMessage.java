@@ -0,0 +1,40 @@
+package lemoon.can.milkyway.infrastructure.inner.archive;
+
+import lemoon.can.milkyway.common.enums.MessageType;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 归档消息，与 message 表的一行对应
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+public class ArchivedMessage {
+    /**
+     * 消息ID
+     */
+    private Long id;
+    /**
+     * 聊天室ID
+     */
+    private Long chatId;
+    /**
+     * 发送者ID
+     */
+    private String senderId;
+    /**
+     * 类型
+     */
+    private MessageType type;
+    /**
+     * 内容
+     */
+    private String content;
+    /**
+     * 发送时间
+     */
+    private LocalDateTime sentTime;
+}
@@ -0,0 +1,489 @@
+package lemoon.can.milkyway.infrastructure.inner.archive;
+
+import com.alibaba.fastjson2.JSON;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 消息冷归档存储
+ * <p>
+ * 目录结构：
+ * <ul>
+ *     <li>segment-000001.seg ... 只追加的段文件，由若干块组成，每块为同一聊天的一段连续消息(gzip压缩的JSON数组)</li>
+ *     <li>index.log 稀疏索引，每块一行(A,chatId,minId,maxId,segment,offset,length,count)；恢复聊天时追加 R,chatId</li>
+ * </ul>
+ * 块头：magic(4) chatId(8) minId(8) maxId(8) count(4) payloadLength(4) crc32(4)
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class MessageArchive {
+    private static final int MAGIC = 0x4D574152;
+    private static final int HEADER_LENGTH = 40;
+    private static final String INDEX_FILE = "index.log";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    /**
+     * 聊天ID -> 按ID升序的块索引
+     */
+    private final Map<Long, List<BlockIndex>> index = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readChannels = new ConcurrentHashMap<>();
+    /**
+     * 读共享；追加、恢复、压缩独占
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int activeSegment;
+
+    public MessageArchive(@Value("${archive.message.dir:house/archive/message}") String dir,
+                          @Value("${archive.message.max-segment-mb:64}") long maxSegmentMb) {
+        this.dir = Paths.get(dir);
+        this.maxSegmentBytes = maxSegmentMb * 1024 * 1024;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(dir);
+        activeSegment = Math.max(1, segmentNumbers().stream().max(Integer::compareTo).orElse(1));
+        Path indexFile = dir.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] parts = line.split(",");
+            long chatId = Long.parseLong(parts[1]);
+            if ("R".equals(parts[0])) {
+                index.remove(chatId);
+            } else {
+                BlockIndex block = new BlockIndex(chatId, Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                        Integer.parseInt(parts[4]), Long.parseLong(parts[5]), Integer.parseInt(parts[6]),
+                        Integer.parseInt(parts[7]));
+                index.computeIfAbsent(chatId, k -> new ArrayList<>()).add(block);
+            }
+        }
+        index.replaceAll((chatId, blocks) -> sorted(blocks));
+        log.info("消息归档已加载，聊天数{}", index.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        readChannels.values().forEach(this::closeQuietly);
+        readChannels.clear();
+    }
+
+    /**
+     * 聊天的归档边界
+     *
+     * @param chatId 聊天ID
+     * @return 已归档的最大消息ID，未归档返回null
+     */
+    public Long boundary(Long chatId) {
+        List<BlockIndex> blocks = index.get(chatId);
+        return blocks == null || blocks.isEmpty() ? null : blocks.get(blocks.size() - 1).maxId();
+    }
+
+    /**
+     * 已归档的聊天ID
+     */
+    public Set<Long> chatIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * 追加一块归档消息，写入并刷盘后才返回
+     *
+     * @param chatId   聊天ID
+     * @param messages 按ID升序、且大于当前归档边界的消息
+     */
+    public void append(Long chatId, List<ArchivedMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Long boundary = boundary(chatId);
+            if (boundary != null && messages.get(0).getId() <= boundary) {
+                throw new IllegalStateException("归档消息必须大于归档边界" + boundary);
+            }
+            BlockIndex block = writeBlock(chatId, messages);
+            appendIndex(List.of(block.toLine()));
+            List<BlockIndex> blocks = new ArrayList<>(index.getOrDefault(chatId, List.of()));
+            blocks.add(block);
+            index.put(chatId, List.copyOf(blocks));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 倒序读取指定消息之前的归档消息
+     *
+     * @param chatId 聊天ID
+     * @param before 游标(不包含)，为null时从最新的归档消息开始
+     * @param limit  数量
+     * @return 按ID倒序的消息
+     */
+    public List<ArchivedMessage> readBefore(Long chatId, Long before, int limit) {
+        if (limit <= 0 || !index.containsKey(chatId)) {
+            return List.of();
+        }
+        List<ArchivedMessage> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<BlockIndex> blocks = index.getOrDefault(chatId, List.of());
+            for (int i = blocks.size() - 1; i >= 0 && result.size() < limit; i--) {
+                BlockIndex block = blocks.get(i);
+                if (before != null && block.minId() >= before) {
+                    continue;
+                }
+                List<ArchivedMessage> messages = readBlock(block);
+                for (int j = messages.size() - 1; j >= 0 && result.size() < limit; j--) {
+                    if (before == null || messages.get(j).getId() < before) {
+                        result.add(messages.get(j));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 正序读取指定消息之后的归档消息
+     *
+     * @param chatId 聊天ID
+     * @param after  游标(不包含)
+     * @param limit  数量
+     * @return 按ID正序的消息
+     */
+    public List<ArchivedMessage> readAfter(Long chatId, Long after, int limit) {
+        if (limit <= 0 || !index.containsKey(chatId)) {
+            return List.of();
+        }
+        List<ArchivedMessage> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<BlockIndex> blocks = index.getOrDefault(chatId, List.of());
+            for (int i = 0; i < blocks.size() && result.size() < limit; i++) {
+                BlockIndex block = blocks.get(i);
+                if (block.maxId() <= after) {
+                    continue;
+                }
+                for (ArchivedMessage message : readBlock(block)) {
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                    if (message.getId() > after) {
+                        result.add(message);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 读取聊天的全部归档消息
+     *
+     * @param chatId 聊天ID
+     * @return 按ID正序的消息
+     */
+    public List<ArchivedMessage> readAll(Long chatId) {
+        return readAfter(chatId, Long.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 移除聊天的归档索引，段文件中的数据在压缩时清理
+     *
+     * @param chatId 聊天ID
+     */
+    public void remove(Long chatId) {
+        lock.writeLock().lock();
+        try {
+            appendIndex(List.of("R," + chatId));
+            index.remove(chatId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 校验全部归档块：块头、CRC、消息数与ID范围
+     *
+     * @return 错误列表，为空表示校验通过
+     */
+    public List<String> verify() {
+        List<String> errors = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (List<BlockIndex> blocks : index.values()) {
+                long prevMaxId = Long.MIN_VALUE;
+                for (BlockIndex block : blocks) {
+                    String location = String.format("chat %d segment %d offset %d", block.chatId(), block.segment(), block.offset());
+                    try {
+                        List<ArchivedMessage> messages = readBlock(block);
+                        if (messages.size() != block.count()) {
+                            errors.add(location + ": 消息数不一致");
+                        }
+                        long prevId = prevMaxId;
+                        for (ArchivedMessage message : messages) {
+                            if (!block.chatId().equals(message.getChatId())) {
+                                errors.add(location + ": 聊天ID不一致 " + message.getId());
+                            }
+                            if (message.getId() <= prevId || message.getId() < block.minId() || message.getId() > block.maxId()) {
+                                errors.add(location + ": 消息ID无序或越界 " + message.getId());
+                            }
+                            prevId = message.getId();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        errors.add(location + ": " + e.getMessage());
+                    }
+                    prevMaxId = block.maxId();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return errors;
+    }
+
+    /**
+     * 压缩：只保留仍被索引引用的块，同一聊天的相邻小块合并，重写到新段文件后删除旧段
+     *
+     * @param maxMessagesPerBlock 合并后每块最多消息数
+     * @return 压缩前后的段文件字节数
+     */
+    public long[] compact(int maxMessagesPerBlock) {
+        lock.writeLock().lock();
+        try {
+            long before = totalSegmentBytes();
+            List<Integer> oldSegments = segmentNumbers();
+            activeSegment = oldSegments.stream().max(Integer::compareTo).orElse(0) + 1;
+
+            Map<Long, List<BlockIndex>> compacted = new HashMap<>();
+            List<String> lines = new ArrayList<>();
+            for (Map.Entry<Long, List<BlockIndex>> entry : index.entrySet()) {
+                List<ArchivedMessage> pending = new ArrayList<>();
+                List<BlockIndex> blocks = new ArrayList<>();
+                for (BlockIndex block : entry.getValue()) {
+                    pending.addAll(readBlock(block));
+                    while (pending.size() >= maxMessagesPerBlock) {
+                        List<ArchivedMessage> chunk = pending.subList(0, maxMessagesPerBlock);
+                        blocks.add(writeBlock(entry.getKey(), new ArrayList<>(chunk)));
+                        chunk.clear();
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    blocks.add(writeBlock(entry.getKey(), pending));
+                }
+                blocks.forEach(block -> lines.add(block.toLine()));
+                compacted.put(entry.getKey(), List.copyOf(blocks));
+            }
+
+            // 原子替换索引后再删除旧段
+            Path tmp = dir.resolve(INDEX_FILE + ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.clear();
+            index.putAll(compacted);
+
+            for (Integer segment : oldSegments) {
+                FileChannel channel = readChannels.remove(segment);
+                if (channel != null) {
+                    closeQuietly(channel);
+                }
+                Files.deleteIfExists(segmentPath(segment));
+            }
+            return new long[]{before, totalSegmentBytes()};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private BlockIndex writeBlock(Long chatId, List<ArchivedMessage> messages) throws IOException {
+        byte[] payload = compress(JSON.toJSONBytes(messages));
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        buffer.putInt(MAGIC)
+                .putLong(chatId)
+                .putLong(messages.get(0).getId())
+                .putLong(messages.get(messages.size() - 1).getId())
+                .putInt(messages.size())
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+
+        Path segmentPath = segmentPath(activeSegment);
+        if (Files.exists(segmentPath) && Files.size(segmentPath) >= maxSegmentBytes) {
+            activeSegment++;
+            segmentPath = segmentPath(activeSegment);
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long offset = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            return new BlockIndex(chatId, messages.get(0).getId(), messages.get(messages.size() - 1).getId(),
+                    activeSegment, offset, HEADER_LENGTH + payload.length, messages.size());
+        }
+    }
+
+    private List<ArchivedMessage> readBlock(BlockIndex block) throws IOException {
+        FileChannel channel = readChannels.computeIfAbsent(block.segment(), segment -> {
+            try {
+                return FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        ByteBuffer buffer = ByteBuffer.allocate(block.length());
+        long position = block.offset();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("段文件被截断");
+            }
+            position += read;
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("块头损坏");
+        }
+        long chatId = buffer.getLong();
+        buffer.getLong();
+        buffer.getLong();
+        buffer.getInt();
+        int payloadLength = buffer.getInt();
+        int expectedCrc = buffer.getInt();
+        if (chatId != block.chatId() || payloadLength != block.length() - HEADER_LENGTH) {
+            throw new IOException("块头与索引不一致");
+        }
+        byte[] payload = new byte[payloadLength];
+        buffer.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("CRC校验失败");
+        }
+        return JSON.parseArray(decompress(payload), ArchivedMessage.class);
+    }
+
+    private void appendIndex(List<String> lines) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private List<Integer> segmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long totalSegmentBytes() throws IOException {
+        long total = 0;
+        for (Integer segment : segmentNumbers()) {
+            total += Files.size(segmentPath(segment));
+        }
+        return total;
+    }
+
+    private Path segmentPath(int segment) {
+        return dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static List<BlockIndex> sorted(List<BlockIndex> blocks) {
+        List<BlockIndex> copy = new ArrayList<>(blocks);
+        copy.sort(Comparator.comparing(BlockIndex::minId));
+        return List.copyOf(copy);
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+            gzip.write(data);
+        }
+        return bos.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        }
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("关闭归档段文件失败", e);
+        }
+    }
+
+    /**
+     * 块索引
+     */
+    private record BlockIndex(Long chatId, long minId, long maxId, int segment, long offset, int length, int count) {
+        String toLine() {
+            return String.join(",", "A", String.valueOf(chatId), String.valueOf(minId), String.valueOf(maxId),
+                    String.valueOf(segment), String.valueOf(offset), String.valueOf(length), String.valueOf(count));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package lemoon.can.milkyway.infrastructure.inner.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 消息归档运维命令，默认不对外暴露，需要时在 management.endpoints.web.exposure.include 中加入 messagearchive
+ * <ul>
+ *     <li>GET /actuator/messagearchive 校验</li>
+ *     <li>POST /actuator/messagearchive 压缩</li>
+ *     <li>DELETE /actuator/messagearchive/{chatId} 恢复聊天的归档消息</li>
+ * </ul>
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+@Endpoint(id = "messagearchive")
+@RequiredArgsConstructor
+public class MessageArchiveEndpoint {
+    private final MessageArchiveService messageArchiveService;
+
+    @ReadOperation
+    public Map<String, Object> verify() {
+        List<String> errors = messageArchiveService.verify();
+        return Map.of("valid", errors.isEmpty(), "errors", errors);
+    }
+
+    @WriteOperation
+    public Map<String, Object> compact() {
+        long[] bytes = messageArchiveService.compact();
+        return Map.of("beforeBytes", bytes[0], "afterBytes", bytes[1]);
+    }
+
+    @DeleteOperation
+    public Map<String, Object> restore(@Selector Long chatId) {
+        return Map.of("chatId", chatId, "restored", messageArchiveService.restore(chatId));
+    }
+}
@@ -0,0 +1,204 @@
+package lemoon.can.milkyway.infrastructure.inner.archive;
+
+import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
+import lemoon.can.milkyway.infrastructure.inner.chat.RecentMessageCache;
+import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MessageMapper;
+import lemoon.can.milkyway.infrastructure.repository.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 消息冷归档
+ * 将早于N个月的消息按聊天搬迁到本地归档文件，读取时对调用方透明
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageArchiveService {
+    private final MessageArchive messageArchive;
+    private final MessageMapper messageMapper;
+    private final UserMapper userMapper;
+    private final RecentMessageCache recentMessageCache;
+
+    @Value("${archive.message.after-months:6}")
+    private int afterMonths;
+    @Value("${archive.message.block-size:1000}")
+    private int blockSize;
+
+    /**
+     * 归档早于N个月的消息，每个聊天的最后一条消息始终保留在消息表
+     * 先写归档并刷盘，再删除消息表中对应区间，中断后重复执行是安全的
+     *
+     * @return 归档的消息数
+     */
+    public long archive() {
+        LocalDateTime beforeTime = LocalDateTime.now().minusMonths(afterMonths);
+        long total = 0;
+        for (Long chatId : messageMapper.selectChatIdsBefore(beforeTime)) {
+            Long maxId = messageMapper.selectMaxIdBefore(chatId, beforeTime);
+            if (maxId == null) {
+                continue;
+            }
+            Long cursor = messageArchive.boundary(chatId);
+            if (cursor != null) {
+                // 上次写入归档后未来得及删除的消息
+                messageMapper.deleteByChatIdBetween(chatId, Long.MIN_VALUE, cursor);
+            } else {
+                cursor = Long.MIN_VALUE;
+            }
+            while (cursor < maxId) {
+                List<ArchivedMessage> messages = messageMapper.selectForArchive(chatId, cursor, maxId, blockSize);
+                if (messages.isEmpty()) {
+                    break;
+                }
+                messageArchive.append(chatId, messages);
+                Long lastId = messages.get(messages.size() - 1).getId();
+                messageMapper.deleteByChatIdBetween(chatId, messages.get(0).getId(), lastId);
+                cursor = lastId;
+                total += messages.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 将聊天的归档消息写回消息表并移除归档索引
+     *
+     * @param chatId 聊天ID
+     * @return 恢复的消息数
+     */
+    public int restore(Long chatId) {
+        List<ArchivedMessage> messages = messageArchive.readAll(chatId);
+        for (int i = 0; i < messages.size(); i += blockSize) {
+            messageMapper.restoreArchived(messages.subList(i, Math.min(i + blockSize, messages.size())));
+        }
+        messageArchive.remove(chatId);
+        recentMessageCache.evict(chatId);
+        log.info("聊天{}恢复归档消息{}条", chatId, messages.size());
+        return messages.size();
+    }
+
+    /**
+     * 读取已删除聊天的一批归档消息，供清理引用的文件，不查询发送者
+     *
+     * @param chatId 聊天ID
+     * @param after  游标(不包含)
+     * @param limit  数量
+     * @return 按ID正序的消息
+     */
+    public List<ArchivedMessage> readForPurge(Long chatId, Long after, int limit) {
+        return messageArchive.readAfter(chatId, after, limit);
+    }
+
+    /**
+     * 移除已删除聊天的归档，段文件中的数据在压缩时清理
+     *
+     * @param chatId 聊天ID
+     */
+    public void purge(Long chatId) {
+        if (messageArchive.boundary(chatId) == null) {
+            return;
+        }
+        messageArchive.remove(chatId);
+        recentMessageCache.evict(chatId);
+    }
+
+    /**
+     * 校验归档文件
+     *
+     * @return 错误列表，为空表示校验通过
+     */
+    public List<String> verify() {
+        return messageArchive.verify();
+    }
+
+    /**
+     * 压缩归档文件，清理已恢复聊天的数据并合并小块
+     *
+     * @return 压缩前后的段文件字节数
+     */
+    public long[] compact() {
+        return messageArchive.compact(blockSize);
+    }
+
+    /**
+     * 判断消息是否在归档区间内
+     *
+     * @param chatId    聊天ID
+     * @param messageId 消息ID
+     * @return 是否已归档
+     */
+    public boolean isArchived(Long chatId, Long messageId) {
+        Long boundary = messageArchive.boundary(chatId);
+        return boundary != null && messageId <= boundary;
+    }
+
+    /**
+     * 读取指定消息之前的归档消息
+     *
+     * @param chatId 聊天ID
+     * @param before 游标(不包含)，为null时从最新的归档消息开始
+     * @param limit  数量
+     * @return 按ID倒序的消息
+     */
+    public List<MessageDO> readBefore(Long chatId, Long before, int limit) {
+        return toMessageDOs(messageArchive.readBefore(chatId, before, limit));
+    }
+
+    /**
+     * 读取指定消息之后的归档消息
+     *
+     * @param chatId 聊天ID
+     * @param after  游标(不包含)
+     * @param limit  数量
+     * @return 按ID正序的消息
+     */
+    public List<MessageDO> readAfter(Long chatId, Long after, int limit) {
+        Long boundary = messageArchive.boundary(chatId);
+        if (boundary == null || after >= boundary) {
+            return List.of();
+        }
+        return toMessageDOs(messageArchive.readAfter(chatId, after, limit));
+    }
+
+    private List<MessageDO> toMessageDOs(List<ArchivedMessage> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        Set<String> senderIds = messages.stream()
+                .map(ArchivedMessage::getSenderId)
+                .collect(Collectors.toSet());
+        Map<String, SimpleUserDTO> senders = userMapper.selectSimpleByIds(senderIds)
+                .stream()
+                .collect(Collectors.toMap(SimpleUserDTO::getId, Function.identity()));
+
+        List<MessageDO> messageDOS = new ArrayList<>(messages.size());
+        for (ArchivedMessage message : messages) {
+            MessageDO messageDO = new MessageDO();
+            messageDO.setId(message.getId());
+            messageDO.setChatId(message.getChatId());
+            messageDO.setType(message.getType());
+            messageDO.setContent(message.getContent());
+            messageDO.setSentTime(message.getSentTime());
+            SimpleUserDTO sender = senders.get(message.getSenderId());
+            if (sender == null) {
+                sender = new SimpleUserDTO();
+                sender.setId(message.getSenderId());
+            }
+            messageDO.setSender(sender);
+            messageDOS.add(messageDO);
+        }
+        return messageDOS;
+    }
+}
@@ -0,0 +1,167 @@
+package lemoon.can.milkyway.infrastructure.inner.chat;
+
+import com.alibaba.fastjson2.JSON;
+import lemoon.can.milkyway.common.enums.ExportFormat;
+import lemoon.can.milkyway.common.exception.BusinessException;
+import lemoon.can.milkyway.common.exception.ErrorCode;
+import lemoon.can.milkyway.facade.dto.MessageInfoDTO;
+import lemoon.can.milkyway.facade.dto.MessageMetaDTO;
+import lemoon.can.milkyway.infrastructure.converter.MessageConverter;
+import lemoon.can.milkyway.infrastructure.inner.archive.MessageArchiveService;
+import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MessageMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 聊天消息流式导出
+ * <p>
+ * 先按ID正序分块读取归档消息，再用游标逐行读取消息表并按批转换写出，内存占用与聊天大小无关。
+ * 游标在独立的 SqlSession 中打开，独占一个连接直到导出结束，
+ * 转换消息时查询文件信息会再占用一个连接，因此用并发数限制导出对连接池的占用。
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class MessageExporter {
+    private static final int BATCH_SIZE = 200;
+    private static final String CSV_HEADER = "id,sentTime,senderId,senderNickName,type,content,media\n";
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final MessageConverter messageConverter;
+    private final MessageArchiveService messageArchiveService;
+    private final Semaphore permits;
+
+    public MessageExporter(SqlSessionFactory sqlSessionFactory,
+                           MessageConverter messageConverter,
+                           MessageArchiveService messageArchiveService,
+                           @Value("${chat.export.max-concurrent:2}") int maxConcurrent) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.messageConverter = messageConverter;
+        this.messageArchiveService = messageArchiveService;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 导出名额是否已用完，仅用于请求入口快速拒绝，不占用名额
+     */
+    public boolean isBusy() {
+        return permits.availablePermits() == 0;
+    }
+
+    /**
+     * 导出聊天消息，名额在导出过程中占用、结束时释放，响应体未执行(客户端提前断开、异步超时等)时不占用
+     *
+     * @param chatId 聊天ID
+     * @param format 导出格式
+     * @param gzip   是否gzip压缩
+     * @param out    输出流，不会被关闭
+     */
+    public void export(Long chatId, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new BusinessException(ErrorCode.BUSY, "导出任务繁忙，请稍后再试");
+        }
+        try {
+            GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 8192) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8));
+            if (format == ExportFormat.CSV) {
+                // BOM，便于表格软件识别编码
+                writer.write('\uFEFF');
+                writer.write(CSV_HEADER);
+            }
+
+            long count = 0;
+            Long cursorId = Long.MIN_VALUE;
+            List<MessageDO> archived;
+            do {
+                archived = messageArchiveService.readAfter(chatId, cursorId, BATCH_SIZE);
+                if (!archived.isEmpty()) {
+                    write(writer, format, archived);
+                    count += archived.size();
+                    cursorId = archived.get(archived.size() - 1).getId();
+                }
+            } while (archived.size() == BATCH_SIZE);
+
+            try (SqlSession session = sqlSessionFactory.openSession();
+                 Cursor<MessageDO> cursor = session.getMapper(MessageMapper.class)
+                         .streamMessages(chatId, cursorId == Long.MIN_VALUE ? null : cursorId)) {
+                List<MessageDO> batch = new ArrayList<>(BATCH_SIZE);
+                for (MessageDO messageDO : cursor) {
+                    batch.add(messageDO);
+                    if (batch.size() == BATCH_SIZE) {
+                        write(writer, format, batch);
+                        count += batch.size();
+                        batch.clear();
+                    }
+                }
+                write(writer, format, batch);
+                count += batch.size();
+            }
+
+            writer.flush();
+            if (gzipOut != null) {
+                gzipOut.finish();
+            }
+            out.flush();
+            log.info("聊天{}导出消息{}条", chatId, count);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 按批转换并写出，同一批的媒体信息一次解析
+     */
+    private void write(Writer writer, ExportFormat format, List<MessageDO> batch) throws IOException {
+        for (MessageInfoDTO message : messageConverter.toMessageInfoDTOs(batch)) {
+            if (format == ExportFormat.CSV) {
+                writeCsv(writer, message);
+            } else {
+                writer.write(JSON.toJSONString(message));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Writer writer, MessageInfoDTO message) throws IOException {
+        MessageMetaDTO meta = message.getMeta();
+        writer.write(csv(message.getId()));
+        writer.write(',');
+        writer.write(csv(message.getSentTime()));
+        writer.write(',');
+        writer.write(csv(message.getSender() == null ? null : message.getSender().getId()));
+        writer.write(',');
+        writer.write(csv(message.getSender() == null ? null : message.getSender().getNickName()));
+        writer.write(',');
+        writer.write(csv(meta.getType() == null ? null : meta.getType().name()));
+        writer.write(',');
+        writer.write(csv(meta.getContent()));
+        writer.write(',');
+        writer.write(csv(meta.getMedia()));
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
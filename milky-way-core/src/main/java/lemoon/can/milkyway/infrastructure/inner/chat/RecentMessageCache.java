@@ -0,0 +1,285 @@
+package lemoon.can.milkyway.infrastructure.inner.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 聊天最近消息缓存
+ * 每个聊天保留最新的K条消息(环形缓冲)，聊天之间按LRU淘汰
+ * 缓冲区始终保存一段连续的"最新"消息：仅在首次读取时从数据库整体装载，之后由发送路径追加
+ * 追加只来自本实例的发送路径，其他实例发送的消息以及发送者昵称、头像的变化不会进入缓冲区，
+ * 因此缓冲区自装载起设过期时间(追加不续期)，过期后重新从数据库装载，限制多实例部署下的陈旧时长
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+public class RecentMessageCache {
+    /**
+     * 追加版本条带数
+     */
+    private static final int STRIPES = 1024;
+
+    private final int capacity;
+    private final int maxChats;
+    private final long ttlMillis;
+    private final Map<Long, RecentMessageBuffer> buffers;
+    /**
+     * 按聊天ID分条带的追加版本号，用于避免装载与并发追加之间的竞态
+     */
+    private final AtomicLongArray appendStamps = new AtomicLongArray(STRIPES);
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public RecentMessageCache(@Value("${chat.recent-message.capacity:50}") int capacity,
+                              @Value("${chat.recent-message.max-chats:10000}") int maxChats,
+                              @Value("${chat.recent-message.ttl-ms:3000}") long ttlMillis,
+                              MeterRegistry meterRegistry) {
+        this.capacity = capacity;
+        this.maxChats = maxChats;
+        this.ttlMillis = ttlMillis;
+        this.buffers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RecentMessageBuffer> eldest) {
+                return size() > RecentMessageCache.this.maxChats;
+            }
+        };
+        this.hitCounter = Counter.builder("chat.recent.message.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("chat.recent.message.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("chat.recent.message.cache.chats", this, RecentMessageCache::size)
+                .register(meterRegistry);
+        Gauge.builder("chat.recent.message.cache.hit.ratio", this, RecentMessageCache::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓冲区容量(每个聊天缓存的消息数)
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取追加版本号，装载前调用，装载时作为{@link #load}的参数
+     *
+     * @param chatId 聊天ID
+     * @return 版本号
+     */
+    public long stamp(Long chatId) {
+        return appendStamps.get(stripe(chatId));
+    }
+
+    /**
+     * 查询最新的消息
+     *
+     * @param chatId 聊天ID
+     * @param limit  数量
+     * @return 按ID倒序的消息列表，未命中返回null
+     */
+    public List<MessageDO> getLatest(Long chatId, int limit) {
+        RecentMessageBuffer buffer = buffer(chatId);
+        List<MessageDO> messages = buffer == null ? null : buffer.latest(limit);
+        record(messages != null);
+        return messages;
+    }
+
+    /**
+     * 查询指定消息之后的消息
+     *
+     * @param chatId 聊天ID
+     * @param after  起始消息ID(不包含)
+     * @param limit  数量
+     * @return 按ID正序的消息列表，未命中返回null
+     */
+    public List<MessageDO> getAfter(Long chatId, Long after, int limit) {
+        RecentMessageBuffer buffer = buffer(chatId);
+        List<MessageDO> messages = buffer == null ? null : buffer.after(after, limit);
+        record(messages != null);
+        return messages;
+    }
+
+    /**
+     * 用数据库查询结果装载缓冲区
+     * 若装载期间该聊天有新消息追加，则放弃装载，由下一次读取重试
+     *
+     * @param chatId   聊天ID
+     * @param messages 按ID倒序的最新消息
+     * @param complete 是否已包含该聊天的全部消息
+     * @param stamp    查询数据库前获取的版本号
+     */
+    public void load(Long chatId, List<MessageDO> messages, boolean complete, long stamp) {
+        RecentMessageBuffer buffer = new RecentMessageBuffer(capacity, complete, System.currentTimeMillis() + ttlMillis);
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            buffer.append(messages.get(i));
+        }
+        synchronized (buffers) {
+            if (appendStamps.get(stripe(chatId)) != stamp) {
+                return;
+            }
+            buffers.put(chatId, buffer);
+        }
+    }
+
+    /**
+     * 追加新消息，仅在该聊天已装载时生效
+     *
+     * @param message 消息
+     */
+    public void append(MessageDO message) {
+        appendStamps.incrementAndGet(stripe(message.getChatId()));
+        RecentMessageBuffer buffer = buffer(message.getChatId());
+        if (buffer != null) {
+            buffer.append(message);
+        }
+    }
+
+    /**
+     * 移除聊天的缓冲区
+     *
+     * @param chatId 聊天ID
+     */
+    public void evict(Long chatId) {
+        appendStamps.incrementAndGet(stripe(chatId));
+        synchronized (buffers) {
+            buffers.remove(chatId);
+        }
+    }
+
+    public int size() {
+        synchronized (buffers) {
+            return buffers.size();
+        }
+    }
+
+    public double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private RecentMessageBuffer buffer(Long chatId) {
+        synchronized (buffers) {
+            RecentMessageBuffer buffer = buffers.get(chatId);
+            if (buffer != null && System.currentTimeMillis() >= buffer.expireAt) {
+                buffers.remove(chatId);
+                return null;
+            }
+            return buffer;
+        }
+    }
+
+    private void record(boolean hit) {
+        if (hit) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+        }
+    }
+
+    private static int stripe(Long chatId) {
+        return (Long.hashCode(chatId) & 0x7fffffff) % STRIPES;
+    }
+
+    /**
+     * 单个聊天的环形缓冲，按消息ID升序保存
+     */
+    private static class RecentMessageBuffer {
+        private final MessageDO[] ring;
+        private final long expireAt;
+        private int head;
+        private int size;
+        /**
+         * 缓冲区是否包含该聊天的全部消息(被挤出过消息后不再完整)
+         */
+        private boolean complete;
+
+        RecentMessageBuffer(int capacity, boolean complete, long expireAt) {
+            this.ring = new MessageDO[capacity];
+            this.complete = complete;
+            this.expireAt = expireAt;
+        }
+
+        synchronized void append(MessageDO message) {
+            // 并发发送时提交顺序可能与ID顺序不一致，从尾部向前找到插入位置
+            int pos = size;
+            while (pos > 0) {
+                MessageDO prev = get(pos - 1);
+                if (prev.getId().equals(message.getId())) {
+                    return;
+                }
+                if (prev.getId() < message.getId()) {
+                    break;
+                }
+                pos--;
+            }
+            if (size == ring.length) {
+                if (pos == 0) {
+                    // 比缓冲区内所有消息都旧，且缓冲区已满
+                    return;
+                }
+                head = (head + 1) % ring.length;
+                size--;
+                pos--;
+                complete = false;
+            }
+            for (int i = size; i > pos; i--) {
+                set(i, get(i - 1));
+            }
+            set(pos, message);
+            size++;
+        }
+
+        synchronized List<MessageDO> latest(int limit) {
+            if (size < limit && !complete) {
+                return null;
+            }
+            int count = Math.min(limit, size);
+            List<MessageDO> messages = new ArrayList<>(count);
+            for (int i = size - 1; i >= size - count; i--) {
+                messages.add(get(i));
+            }
+            return messages;
+        }
+
+        synchronized List<MessageDO> after(Long after, int limit) {
+            if (size == 0) {
+                return complete ? Collections.emptyList() : null;
+            }
+            // 游标早于缓冲区最旧消息时，中间可能有未缓存的消息
+            if (!complete && after < get(0).getId()) {
+                return null;
+            }
+            List<MessageDO> messages = new ArrayList<>(Math.min(limit, size));
+            for (int i = 0; i < size && messages.size() < limit; i++) {
+                MessageDO message = get(i);
+                if (message.getId() > after) {
+                    messages.add(message);
+                }
+            }
+            return messages;
+        }
+
+        private MessageDO get(int index) {
+            return ring[(head + index) % ring.length];
+        }
+
+        private void set(int index, MessageDO message) {
+            ring[(head + index) % ring.length] = message;
+        }
+    }
+}
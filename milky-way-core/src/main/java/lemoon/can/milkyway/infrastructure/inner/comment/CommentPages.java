@@ -0,0 +1,211 @@
+package lemoon.can.milkyway.infrastructure.inner.comment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lemoon.can.milkyway.facade.dto.CommentDTO;
+import lemoon.can.milkyway.infrastructure.converter.CommentConverter;
+import lemoon.can.milkyway.infrastructure.repository.dos.CommentDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.CommentMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 动态评论分页
+ * <ul>
+ *     <li>分页：顶级评论按ID升序键集分页，每条顶级评论带前几条回复，其余回复单独分页</li>
+ *     <li>缓存：各动态的第一页放在有界LRU中，热门动态的列表请求不再查库；评论新增、删除时失效；缓存的列表不可变</li>
+ * </ul>
+ * 加载与失效并发时，失效会移除加载前占位的条目，加载结果不再写回，不会缓存旧数据；
+ * 失效只作用于本实例，缓存另设过期时间，限制其他实例上的陈旧时长
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+public class CommentPages {
+    private final CommentMapper commentMapper;
+    private final CommentConverter commentConverter;
+    private final int pageSize;
+    private final int replySize;
+    private final long ttlMillis;
+    private final Map<Long, Entry> firstPages;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public CommentPages(@Value("${moment.comment.page-size:10}") int pageSize,
+                        @Value("${moment.comment.reply-size:3}") int replySize,
+                        @Value("${moment.comment.cache-size:2000}") int cacheSize,
+                        @Value("${moment.comment.cache-ttl-ms:30000}") long ttlMillis,
+                        CommentMapper commentMapper,
+                        CommentConverter commentConverter,
+                        MeterRegistry meterRegistry) {
+        this.pageSize = pageSize;
+        this.replySize = replySize;
+        this.ttlMillis = ttlMillis;
+        this.commentMapper = commentMapper;
+        this.commentConverter = commentConverter;
+        this.firstPages = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.hitCounter = Counter.builder("moment.comment.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("moment.comment.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 第一页的顶级评论数
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * 批量获取多条动态的评论第一页，未缓存的动态合并为一次顶级评论查询和一次回复查询
+     *
+     * @param momentIds 动态ID
+     * @return 动态ID -> 第一页
+     */
+    public Map<Long, CommentPage> firstPages(Collection<Long> momentIds) {
+        Map<Long, CommentPage> pages = new HashMap<>();
+        Map<Long, Entry> loading = new HashMap<>();
+        long now = System.currentTimeMillis();
+        synchronized (firstPages) {
+            for (Long momentId : momentIds) {
+                Entry entry = firstPages.get(momentId);
+                if (entry != null && entry.page != null && now < entry.expireAt) {
+                    pages.put(momentId, entry.page);
+                } else {
+                    entry = new Entry(now + ttlMillis);
+                    firstPages.put(momentId, entry);
+                    loading.put(momentId, entry);
+                }
+            }
+        }
+        hitCounter.increment(pages.size());
+        if (loading.isEmpty()) {
+            return pages;
+        }
+        missCounter.increment(loading.size());
+
+        Map<Long, CommentPage> loaded = load(loading.keySet());
+        synchronized (firstPages) {
+            loading.forEach((momentId, entry) -> {
+                // 加载期间已被失效或淘汰的不再写回
+                if (firstPages.get(momentId) == entry) {
+                    entry.page = loaded.get(momentId);
+                }
+            });
+        }
+        pages.putAll(loaded);
+        return pages;
+    }
+
+    /**
+     * 查询顶级评论的一页，不经过缓存
+     *
+     * @param momentId 动态ID
+     * @param lastId   上一页最后一条顶级评论ID，为null时从头开始
+     * @param size     数量
+     */
+    public CommentPage page(Long momentId, Long lastId, int size) {
+        List<CommentDO> topComments = commentMapper.selectTopComments(momentId, lastId, size + 1);
+        boolean hasNext = topComments.size() > size;
+        if (hasNext) {
+            topComments = topComments.subList(0, size);
+        }
+        return new CommentPage(commentConverter.buildThreads(topComments, firstReplies(topComments)), hasNext);
+    }
+
+    /**
+     * 动态的评论有新增或删除
+     *
+     * @param momentId 动态ID
+     */
+    public void invalidate(Long momentId) {
+        synchronized (firstPages) {
+            firstPages.remove(momentId);
+        }
+    }
+
+    private Map<Long, CommentPage> load(Collection<Long> momentIds) {
+        Map<Long, List<CommentDO>> topComments = new HashMap<>();
+        for (CommentDO comment : commentMapper.selectFirstTopComments(momentIds, pageSize + 1)) {
+            topComments.computeIfAbsent(comment.getMomentId(), k -> new ArrayList<>()).add(comment);
+        }
+
+        List<CommentDO> shown = new ArrayList<>();
+        Set<Long> hasNext = new HashSet<>();
+        topComments.forEach((momentId, comments) -> {
+            if (comments.size() > pageSize) {
+                comments.subList(pageSize, comments.size()).clear();
+                hasNext.add(momentId);
+            }
+            shown.addAll(comments);
+        });
+        Map<Long, List<CommentDO>> replies = new HashMap<>();
+        for (CommentDO reply : firstReplies(shown)) {
+            replies.computeIfAbsent(reply.getMomentId(), k -> new ArrayList<>()).add(reply);
+        }
+
+        Map<Long, CommentPage> pages = new HashMap<>();
+        for (Long momentId : momentIds) {
+            List<CommentDTO> threads = commentConverter.buildThreads(
+                    topComments.getOrDefault(momentId, List.of()), replies.getOrDefault(momentId, List.of()));
+            pages.put(momentId, new CommentPage(freeze(threads), hasNext.contains(momentId)));
+        }
+        return pages;
+    }
+
+    /**
+     * 缓存的第一页由所有请求共享，页与各回复列表都转为不可变列表，防止某个请求的修改影响其他请求
+     */
+    private static List<CommentDTO> freeze(List<CommentDTO> threads) {
+        for (CommentDTO thread : threads) {
+            for (CommentDTO reply : thread.getReplies()) {
+                reply.setReplies(List.of());
+            }
+            thread.setReplies(List.copyOf(thread.getReplies()));
+        }
+        return List.copyOf(threads);
+    }
+
+    private List<CommentDO> firstReplies(List<CommentDO> topComments) {
+        List<Long> rootIds = topComments.stream()
+                .filter(comment -> comment.getReplyCounts() > 0)
+                .map(CommentDO::getId)
+                .toList();
+        if (rootIds.isEmpty() || replySize <= 0) {
+            return List.of();
+        }
+        return commentMapper.selectFirstReplies(rootIds, replySize);
+    }
+
+    /**
+     * 顶级评论的一页
+     *
+     * @param comments 顶级评论，各带前几条回复
+     * @param hasNext  是否还有更多顶级评论
+     */
+    public record CommentPage(List<CommentDTO> comments, boolean hasNext) {
+    }
+
+    private static class Entry {
+        private final long expireAt;
+        /**
+         * 为空表示正在加载
+         */
+        private CommentPage page;
+
+        Entry(long expireAt) {
+            this.expireAt = expireAt;
+        }
+    }
+}
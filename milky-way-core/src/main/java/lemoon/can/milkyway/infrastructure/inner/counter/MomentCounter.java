@@ -0,0 +1,107 @@
+package lemoon.can.milkyway.infrastructure.inner.counter;
+
+import jakarta.annotation.PreDestroy;
+import lemoon.can.milkyway.infrastructure.repository.dos.MomentCountDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MomentMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 动态点赞数、评论数计数器
+ * <p>
+ * 增量先累加到内存中每条动态的 LongAdder(高并发下按线程分散到不同单元，互不竞争)，
+ * 定时以 like_counts = like_counts + ? 的方式批量写回，点赞不再锁动态行，也不会丢失更新。
+ * 数据库中的计数最多落后一个刷新周期；多实例各自累加、各自写回，结果可叠加
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class MomentCounter {
+    private static final int FLUSH_BATCH = 200;
+
+    private final MomentMapper momentMapper;
+    private final Map<Long, Delta> deltas = new ConcurrentHashMap<>();
+
+    public MomentCounter(MomentMapper momentMapper) {
+        this.momentMapper = momentMapper;
+    }
+
+    public void addLike(Long momentId, long delta) {
+        add(momentId, delta, 0);
+    }
+
+    public void addComment(Long momentId, long delta) {
+        add(momentId, 0, delta);
+    }
+
+    private void add(Long momentId, long likes, long comments) {
+        Delta delta = deltas.computeIfAbsent(momentId, k -> new Delta());
+        if (likes != 0) {
+            delta.likes.add(likes);
+        }
+        if (comments != 0) {
+            delta.comments.add(comments);
+        }
+        if (delta.retired) {
+            // 该条目刚被回收，回收时可能没有取到本次增量，取出剩余部分转到新条目(已被取走的部分为0)
+            long restLikes = delta.likes.sumThenReset();
+            long restComments = delta.comments.sumThenReset();
+            if (restLikes != 0 || restComments != 0) {
+                add(momentId, restLikes, restComments);
+            }
+        }
+    }
+
+    /**
+     * 写回数据库
+     */
+    @Scheduled(fixedDelayString = "${moment.counter.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<MomentCountDO> pending = new ArrayList<>();
+        for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+            Delta delta = entry.getValue();
+            long likes = delta.likes.sumThenReset();
+            long comments = delta.comments.sumThenReset();
+            if (likes == 0 && comments == 0) {
+                // 一个周期内没有变化，回收条目；回收后到达的增量由写入方转移
+                delta.retired = true;
+                deltas.remove(entry.getKey(), delta);
+                likes = delta.likes.sumThenReset();
+                comments = delta.comments.sumThenReset();
+                if (likes == 0 && comments == 0) {
+                    continue;
+                }
+            }
+            pending.add(new MomentCountDO(entry.getKey(), likes, comments));
+        }
+
+        for (int from = 0; from < pending.size(); from += FLUSH_BATCH) {
+            List<MomentCountDO> batch = pending.subList(from, Math.min(from + FLUSH_BATCH, pending.size()));
+            try {
+                momentMapper.addCounts(batch);
+            } catch (RuntimeException e) {
+                // 写回失败，放回内存等待下次刷新
+                log.error("动态计数写回失败，{}条待重试", batch.size(), e);
+                for (MomentCountDO count : batch) {
+                    add(count.getMomentId(), count.getLikeDelta(), count.getCommentDelta());
+                }
+            }
+        }
+    }
+
+    private static class Delta {
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder comments = new LongAdder();
+        private volatile boolean retired;
+    }
+}
@@ -0,0 +1,158 @@
+package lemoon.can.milkyway.infrastructure.inner.id;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lemoon.can.milkyway.common.utils.Snowflake;
+import lemoon.can.milkyway.infrastructure.repository.mapper.WorkerLeaseMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法WorkerID租约
+ * <ul>
+ *     <li>启动时从租约表领取一个未被持有或已过期的WorkerID，领取不到则启动失败</li>
+ *     <li>定时心跳续期，正常停机时释放；心跳使用独立的单线程调度器，不与其他定时任务共用线程，
+ *     归档、清理等长任务不会把续期延误到本地期限之后</li>
+ *     <li>续期失败或超过本地记录的租约期限(实例卡顿、数据库不可用)时立即停用WorkerID，
+ *     雪花算法拒绝生成ID；之后每次心跳重新领取，停用期间健康检查为DOWN</li>
+ * </ul>
+ * 心跳间隔需远小于租约时长，否则实例卡顿期间租约可能被其他实例领走
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class WorkerIdLease implements HealthIndicator {
+    private final WorkerLeaseMapper workerLeaseMapper;
+    private final int leaseSeconds;
+    private final long heartbeatMillis;
+    /**
+     * 实例标识，每次启动都不同，重启前的租约到期前不会被复用
+     */
+    private final String owner;
+    private volatile int workerId = -1;
+    /**
+     * 本地租约期限(System.nanoTime)，从发起领取/续期的时刻起算，不晚于数据库中的到期时间
+     */
+    private volatile long validUntilNanos;
+    private ThreadPoolTaskScheduler heartbeatScheduler;
+
+    public WorkerIdLease(WorkerLeaseMapper workerLeaseMapper,
+                         @Value("${snowflake.worker.lease-seconds:60}") int leaseSeconds,
+                         @Value("${snowflake.worker.heartbeat-ms:10000}") long heartbeatMillis) {
+        this.workerLeaseMapper = workerLeaseMapper;
+        this.leaseSeconds = leaseSeconds;
+        this.heartbeatMillis = heartbeatMillis;
+        this.owner = hostName() + ":" + ProcessHandle.current().pid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PostConstruct
+    public void start() {
+        acquire();
+        heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("worker-lease-");
+        heartbeatScheduler.setDaemon(true);
+        heartbeatScheduler.initialize();
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat,
+                Instant.now().plusMillis(heartbeatMillis), Duration.ofMillis(heartbeatMillis));
+    }
+
+    public void acquire() {
+        if (!tryAcquire()) {
+            throw new IllegalStateException("没有可用的WorkerID，所有租约均被占用");
+        }
+    }
+
+    /**
+     * 当前持有的WorkerID
+     *
+     * @return 租约丢失或已过本地期限时为-1
+     */
+    public int workerId() {
+        int id = workerId;
+        return id >= 0 && System.nanoTime() - validUntilNanos < 0 ? id : -1;
+    }
+
+    public void heartbeat() {
+        int id = workerId;
+        if (id >= 0) {
+            long start = System.nanoTime();
+            int renewed;
+            try {
+                renewed = workerLeaseMapper.renew(id, owner, leaseSeconds);
+            } catch (RuntimeException e) {
+                // 无法确认租约，在本地期限内继续使用，到期后 workerId() 自动停用
+                log.warn("WorkerID租约{}续期失败: {}", id, e.getMessage());
+                return;
+            }
+            if (renewed > 0) {
+                validUntilNanos = start + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                return;
+            }
+            // 租约已被其他实例领取，继续生成会产生重复ID
+            workerId = -1;
+            log.error("WorkerID租约{}已丢失，停止生成ID，实例{}", id, owner);
+        }
+        if (tryAcquire()) {
+            log.warn("WorkerID租约已重新领取，恢复生成ID");
+        } else {
+            log.error("没有可用的WorkerID，暂停生成ID，实例{}", owner);
+        }
+    }
+
+    @Override
+    public Health health() {
+        int id = workerId();
+        return id >= 0
+                ? Health.up().withDetail("workerId", id).build()
+                : Health.down().withDetail("owner", owner).build();
+    }
+
+    @PreDestroy
+    public void release() {
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdown();
+        }
+        int id = workerId;
+        if (id >= 0) {
+            workerId = -1;
+            workerLeaseMapper.release(id, owner);
+            log.info("释放WorkerID租约{}", id);
+        }
+    }
+
+    private boolean tryAcquire() {
+        for (int id = 0; id <= Snowflake.MAX_WORKER_ID; id++) {
+            long start = System.nanoTime();
+            workerLeaseMapper.insertIfAbsent(id);
+            if (workerLeaseMapper.acquire(id, owner, leaseSeconds) > 0) {
+                validUntilNanos = start + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                workerId = id;
+                log.info("领取WorkerID租约{}，实例{}", id, owner);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package lemoon.can.milkyway.infrastructure.inner.moment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lemoon.can.milkyway.common.enums.MomentContentType;
+import lemoon.can.milkyway.infrastructure.repository.dos.MomentDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MomentMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 动态头部缓存：发布者、文字、媒体等发布后基本不变的部分，不含点赞数、评论数
+ * <ul>
+ *     <li>有界LRU，热门动态的通知构建、点赞校验、详情查询不再重复查库</li>
+ *     <li>同一动态并发未命中时只有一个线程查库，其余线程等待同一结果</li>
+ *     <li>删除时失效；加载与失效并发时，失效会取消该次加载的写回</li>
+ * </ul>
+ * 失效只作用于本实例，缓存另设过期时间，限制其他实例上已删除动态的可见时长以及发布者昵称、头像的陈旧时长
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+public class MomentHeaderCache {
+    private final MomentMapper momentMapper;
+    private final long ttlMillis;
+    private final Map<Long, Entry> headers;
+    private final Map<Long, CompletableFuture<MomentHeader>> loading = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sharedCounter;
+
+    public MomentHeaderCache(@Value("${moment.header.cache-size:5000}") int cacheSize,
+                             @Value("${moment.header.cache-ttl-ms:60000}") long ttlMillis,
+                             MomentMapper momentMapper,
+                             MeterRegistry meterRegistry) {
+        this.momentMapper = momentMapper;
+        this.ttlMillis = ttlMillis;
+        this.headers = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.hitCounter = counter(meterRegistry, "hit");
+        this.missCounter = counter(meterRegistry, "miss");
+        this.sharedCounter = counter(meterRegistry, "shared");
+    }
+
+    /**
+     * 获取动态头部
+     *
+     * @param momentId 动态ID
+     * @return 动态头部，动态不存在或已删除时为null
+     */
+    public MomentHeader get(Long momentId) {
+        long now = System.currentTimeMillis();
+        synchronized (headers) {
+            Entry entry = headers.get(momentId);
+            if (entry != null && now < entry.expireAt) {
+                hitCounter.increment();
+                return entry.header;
+            }
+        }
+
+        CompletableFuture<MomentHeader> mine = new CompletableFuture<>();
+        CompletableFuture<MomentHeader> existing = loading.putIfAbsent(momentId, mine);
+        if (existing != null) {
+            sharedCounter.increment();
+            return await(existing);
+        }
+        missCounter.increment();
+        try {
+            MomentDO momentDO = momentMapper.selectMomentById(momentId);
+            MomentHeader header = momentDO == null ? null : MomentHeader.of(momentDO);
+            if (header != null) {
+                synchronized (headers) {
+                    // 加载期间被失效的不再写回
+                    if (loading.get(momentId) == mine) {
+                        headers.put(momentId, new Entry(header, now + ttlMillis));
+                    }
+                }
+            }
+            mine.complete(header);
+            return header;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(momentId, mine);
+        }
+    }
+
+    /**
+     * 动态被删除
+     *
+     * @param momentId 动态ID
+     */
+    public void invalidate(Long momentId) {
+        synchronized (headers) {
+            headers.remove(momentId);
+            loading.remove(momentId);
+        }
+    }
+
+    private static MomentHeader await(CompletableFuture<MomentHeader> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("moment.header.cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(MomentHeader header, long expireAt) {
+    }
+
+    /**
+     * 动态头部
+     *
+     * @param id                动态ID
+     * @param publishUserId     发布用户ID
+     * @param publisherNickName 发布用户昵称
+     * @param publisherAvatar   发布用户头像
+     * @param contentType       内容类型
+     * @param text              文字内容
+     * @param medias            媒体内容
+     * @param location          位置信息
+     * @param createTime        发布时间
+     */
+    public record MomentHeader(Long id, String publishUserId, String publisherNickName, String publisherAvatar,
+                               MomentContentType contentType, String text, List<String> medias,
+                               String location, LocalDateTime createTime) {
+        static MomentHeader of(MomentDO momentDO) {
+            return new MomentHeader(momentDO.getId(), momentDO.getUserId(), momentDO.getUserNickName(),
+                    momentDO.getUserAvatar(), momentDO.getContentType(), momentDO.getText(),
+                    momentDO.getMedias() == null ? null : List.copyOf(momentDO.getMedias()),
+                    momentDO.getLocation(), momentDO.getCreateTime());
+        }
+
+        /**
+         * 转为新的 MomentDO 供转换器使用，点赞数、评论数需调用方填充
+         */
+        public MomentDO toMomentDO() {
+            MomentDO momentDO = new MomentDO();
+            momentDO.setId(id);
+            momentDO.setUserId(publishUserId);
+            momentDO.setUserNickName(publisherNickName);
+            momentDO.setUserAvatar(publisherAvatar);
+            momentDO.setContentType(contentType);
+            momentDO.setText(text);
+            momentDO.setMedias(medias == null ? null : new ArrayList<>(medias));
+            momentDO.setLocation(location);
+            momentDO.setCreateTime(createTime);
+            return momentDO;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package lemoon.can.milkyway.infrastructure.inner.mp;
+
+import jakarta.annotation.PreDestroy;
+import lemoon.can.milkyway.common.enums.MessageNotifyType;
+import lemoon.can.milkyway.common.utils.security.SecureId;
+import lemoon.can.milkyway.facade.dto.*;
+import lemoon.can.milkyway.infrastructure.converter.MomentConverter;
+import lemoon.can.milkyway.infrastructure.inner.MessageDestination;
+import lemoon.can.milkyway.infrastructure.inner.moment.MomentHeaderCache;
+import lemoon.can.milkyway.infrastructure.repository.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 点赞通知聚合
+ * <ul>
+ *     <li>同一动态的点赞、取消点赞先在窗口内缓冲，窗口结束时给作者发一条通知</li>
+ *     <li>窗口内只有一个点赞时发送原来的点赞通知，多个时发送点赞汇总(数量 + 最近的几位用户)</li>
+ *     <li>同一用户在窗口内点赞又取消(或取消又点赞)相互抵消，不发送</li>
+ * </ul>
+ * 作者收到通知的延迟不超过一个窗口；动态查询、用户查询只在窗口结束时进行一次
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class LikeNotifyAggregator {
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UserMapper userMapper;
+    private final SecureId secureId;
+    private final MomentHeaderCache momentHeaderCache;
+    private final MomentConverter momentConverter;
+    private final long windowMillis;
+    private final int latestUsers;
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+
+    public LikeNotifyAggregator(SimpMessagingTemplate messagingTemplate,
+                                UserMapper userMapper,
+                                SecureId secureId,
+                                MomentHeaderCache momentHeaderCache,
+                                MomentConverter momentConverter,
+                                @Value("${notify.like.window-ms:10000}") long windowMillis,
+                                @Value("${notify.like.latest-users:3}") int latestUsers) {
+        this.messagingTemplate = messagingTemplate;
+        this.userMapper = userMapper;
+        this.secureId = secureId;
+        this.momentHeaderCache = momentHeaderCache;
+        this.momentConverter = momentConverter;
+        this.windowMillis = windowMillis;
+        this.latestUsers = latestUsers;
+    }
+
+    /**
+     * 点赞
+     */
+    public void like(Long momentId, String userId, LocalDateTime likeTime) {
+        windows.compute(momentId, (k, window) -> {
+            if (window == null) {
+                window = new Window(System.currentTimeMillis() + windowMillis);
+            }
+            // 窗口内先取消再点赞，与窗口外的原点赞相比没有变化
+            if (!window.unliked.remove(userId)) {
+                window.liked.put(userId, likeTime);
+            }
+            return window;
+        });
+    }
+
+    /**
+     * 取消点赞
+     */
+    public void unlike(Long momentId, String userId) {
+        windows.compute(momentId, (k, window) -> {
+            if (window == null) {
+                window = new Window(System.currentTimeMillis() + windowMillis);
+            }
+            if (window.liked.remove(userId) == null) {
+                window.unliked.add(userId);
+            }
+            return window;
+        });
+    }
+
+    /**
+     * 发送已到期的窗口
+     */
+    @Scheduled(fixedDelayString = "${notify.like.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Window> entry : windows.entrySet()) {
+            if (entry.getValue().flushAt <= now) {
+                send(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 停机时发送全部窗口
+     */
+    @PreDestroy
+    public void flushAll() {
+        for (Map.Entry<Long, Window> entry : windows.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void send(Long momentId, Window window) {
+        // 移除后窗口不会再被修改，之后的事件进入新窗口
+        if (!windows.remove(momentId, window)) {
+            return;
+        }
+        try {
+            doSend(momentId, window);
+        } catch (RuntimeException e) {
+            log.warn("发送动态{}的点赞通知失败", momentId, e);
+        }
+    }
+
+    private void doSend(Long momentId, Window window) {
+        if (window.liked.isEmpty() && window.unliked.isEmpty()) {
+            return;
+        }
+        MomentHeaderCache.MomentHeader header = momentHeaderCache.get(momentId);
+        if (header == null) {
+            return;
+        }
+        // 作者自己点赞不通知
+        String authorId = header.publishUserId();
+        window.liked.remove(authorId);
+        window.unliked.remove(authorId);
+
+        String encodedMomentId = secureId.simpleEncode(momentId, secureId.getMomentSalt());
+        for (String userId : window.unliked) {
+            UnlikeDTO content = new UnlikeDTO();
+            content.setMomentId(encodedMomentId);
+            content.setUserId(userId);
+            content.setPublishUserId(authorId);
+            push(authorId, MessageNotifyType.UNLIKE, content);
+        }
+        if (window.liked.isEmpty()) {
+            return;
+        }
+
+        // 最近点赞的用户，最新的在前
+        List<Map.Entry<String, LocalDateTime>> likes = new ArrayList<>(window.liked.entrySet());
+        Collections.reverse(likes);
+        List<String> latestUserIds = likes.stream().limit(latestUsers).map(Map.Entry::getKey).toList();
+        Map<String, SimpleUserDTO> users = userMapper.selectSimpleByIds(latestUserIds).stream()
+                .collect(Collectors.toMap(SimpleUserDTO::getId, Function.identity()));
+        MomentDescriptionDTO description = momentConverter.toMomentDescriptionDTO(header.toMomentDO());
+        String latestTime = likes.get(0).getValue().format(TIME_FORMATTER);
+
+        if (likes.size() == 1) {
+            LikeDTO content = new LikeDTO();
+            content.setMomentDescription(description);
+            content.setUser(users.get(latestUserIds.get(0)));
+            content.setCreateTime(latestTime);
+            push(authorId, MessageNotifyType.LIKE, content);
+        } else {
+            LikeSummaryDTO content = new LikeSummaryDTO();
+            content.setMomentDescription(description);
+            content.setCount(likes.size());
+            content.setLatestUsers(latestUserIds.stream().map(users::get).filter(Objects::nonNull).toList());
+            content.setCreateTime(latestTime);
+            push(authorId, MessageNotifyType.LIKE_SUMMARY, content);
+        }
+    }
+
+    private <T> void push(String userId, MessageNotifyType notifyType, T content) {
+        MessageNotifyDTO<T> payload = new MessageNotifyDTO<>();
+        payload.setNotifyType(notifyType);
+        payload.setContent(content);
+        messagingTemplate.convertAndSendToUser(userId, MessageDestination.NOTIFY_DEST, payload);
+    }
+
+    /**
+     * 一个动态的聚合窗口，只在 ConcurrentHashMap.compute 内修改
+     */
+    private static class Window {
+        private final long flushAt;
+        /**
+         * 窗口内新增的点赞，按点赞顺序
+         */
+        private final LinkedHashMap<String, LocalDateTime> liked = new LinkedHashMap<>();
+        /**
+         * 窗口内取消的、窗口之前的点赞
+         */
+        private final Set<String> unliked = new LinkedHashSet<>();
+
+        Window(long flushAt) {
+            this.flushAt = flushAt;
+        }
+    }
+}
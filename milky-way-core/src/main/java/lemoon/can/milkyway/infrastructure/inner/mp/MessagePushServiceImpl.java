@@ -10,10 +10,9 @@ import lemoon.can.milkyway.domain.share.Moment;
 import lemoon.can.milkyway.facade.dto.*;
 import lemoon.can.milkyway.infrastructure.converter.MomentConverter;
 import lemoon.can.milkyway.infrastructure.inner.MessageDestination;
-import lemoon.can.milkyway.infrastructure.repository.dos.MomentDO;
+import lemoon.can.milkyway.infrastructure.inner.moment.MomentHeaderCache;
 import lemoon.can.milkyway.infrastructure.repository.mapper.CommentMapper;
 import lemoon.can.milkyway.infrastructure.repository.mapper.FriendMapper;
-import lemoon.can.milkyway.infrastructure.repository.mapper.MomentMapper;
 import lemoon.can.milkyway.infrastructure.repository.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -32,10 +31,11 @@ public class MessagePushServiceImpl implements MessagePushService {
     private final SimpMessagingTemplate messagingTemplate;
     private final UserMapper userMapper;
     private final SecureId secureId;
-    private final MomentMapper momentMapper;
+    private final MomentHeaderCache momentHeaderCache;
     private final MomentConverter momentConverter;
     private final FriendMapper friendMapper;
     private final CommentMapper commentMapper;
+    private final LikeNotifyAggregator likeNotifyAggregator;
 
     @Override
     public void friendApplyMsg(FriendApplication friendApplication) {
@@ -99,46 +99,30 @@ public class MessagePushServiceImpl implements MessagePushService {
 
     @Override
     public void likeMsg(Like like) {
-        //点对点
-        String momentPublishUserId = momentMapper.selectPublishUserIdById(like.getMomentId());
-        MessageNotifyDTO<LikeDTO> payload = new MessageNotifyDTO<>();
-        LikeDTO content = new LikeDTO();
-        MomentDO momentDO = momentMapper.getMomentDescriptionById(like.getMomentId());
-        content.setMomentDescription(momentConverter.toMomentDescriptionDTO(momentDO));
-        content.setUser(userMapper.selectSimpleById(like.getLikeUserId()));
-        content.setCreateTime(like.getCreateTime().format(
-                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        payload.setNotifyType(MessageNotifyType.LIKE);
-        payload.setContent(content);
-
-        if( !like.getLikeUserId().equals(momentPublishUserId)) {
-            //如果点赞用户不是动态发布者，则发送给动态发布者
-            messagingTemplate.convertAndSendToUser(momentPublishUserId, MessageDestination.NOTIFY_DEST, payload);
-        }
+        //按动态聚合后发送给动态发布者
+        likeNotifyAggregator.like(like.getMomentId(), like.getLikeUserId(), like.getCreateTime());
     }
 
     @Override
     public void unlikeMsg(UnlikeDTO unlikeDTO) {
-        MessageNotifyDTO<UnlikeDTO> payload = new MessageNotifyDTO<>();
-        payload.setNotifyType(MessageNotifyType.UNLIKE);
-        payload.setContent(unlikeDTO);
-        if(!unlikeDTO.getUserId().equals(unlikeDTO.getPublishUserId())) {
-            //如果取消点赞用户不是动态发布者，则发送给动态发布者
-            messagingTemplate.convertAndSendToUser(unlikeDTO.getPublishUserId(), MessageDestination.NOTIFY_DEST, payload);
-        }
+        likeNotifyAggregator.unlike(secureId.simpleDecode(unlikeDTO.getMomentId(), secureId.getMomentSalt()),
+                unlikeDTO.getUserId());
     }
 
     @Override
     public void commentMsg(Comment comment) {
         //点对点
-        String momentPublishUserId = momentMapper.selectPublishUserIdById(comment.getMomentId());
+        MomentHeaderCache.MomentHeader header = momentHeaderCache.get(comment.getMomentId());
+        if (header == null) {
+            return;
+        }
+        String momentPublishUserId = header.publishUserId();
         MessageNotifyDTO<CommentWithMomentDTO> payload = new MessageNotifyDTO<>();
         payload.setNotifyType(MessageNotifyType.COMMENT);
         CommentWithMomentDTO content = new CommentWithMomentDTO();
         payload.setContent(content);
         content.setId(comment.getId());
-        MomentDO momentDO = momentMapper.getMomentDescriptionById(comment.getMomentId());
-        content.setMomentDescription(momentConverter.toMomentDescriptionDTO(momentDO));
+        content.setMomentDescription(momentConverter.toMomentDescriptionDTO(header.toMomentDO()));
         content.setParentCommentId(comment.getParentCommentId());
         content.setUser(userMapper.selectSimpleById(comment.getCommentUserId()));
         content.setContent(comment.getContent());
@@ -0,0 +1,278 @@
+package lemoon.can.milkyway.infrastructure.inner.purge;
+
+import lemoon.can.milkyway.common.enums.ExtInfoKeyName;
+import lemoon.can.milkyway.common.enums.MessageType;
+import lemoon.can.milkyway.domain.ExtInfo;
+import lemoon.can.milkyway.facade.service.command.FileService;
+import lemoon.can.milkyway.infrastructure.inner.archive.ArchivedMessage;
+import lemoon.can.milkyway.infrastructure.inner.archive.MessageArchiveService;
+import lemoon.can.milkyway.infrastructure.repository.ExtInfoRepository;
+import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
+import lemoon.can.milkyway.infrastructure.repository.dos.MomentDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 已删除动态、聊天的后台级联清理
+ * <ul>
+ *     <li>删除接口只在主表打墓碑(deleted_time)，查询随即隐藏，关联数据由这里分批删除</li>
+ *     <li>每批最多 batch-size 行、每轮最多 batches-per-run 批，每条语句单独提交，不持有大事务和长时间的锁</li>
+ *     <li>阶段切换与消息游标写入 ext_info，重启后从断点继续</li>
+ * </ul>
+ * 动态：时间线 → 评论 → 点赞 → 媒体文件 → 主表<br>
+ * 聊天：消息(连同媒体文件) → 归档消息(连同媒体文件) → 已读游标 → 成员 → 主表
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class CascadePurgeService {
+    private static final Set<MessageType> MEDIA_TYPES = EnumSet.of(MessageType.IMAGE, MessageType.VIDEO, MessageType.FILE);
+
+    private final MomentMapper momentMapper;
+    private final MomentTimelineMapper timelineMapper;
+    private final CommentMapper commentMapper;
+    private final LikeMapper likeMapper;
+    private final ChatMapper chatMapper;
+    private final ChatMemberMapper chatMemberMapper;
+    private final MessageMapper messageMapper;
+    private final FileService fileService;
+    private final MessageArchiveService messageArchiveService;
+    private final ExtInfoRepository extInfoRepository;
+    private final int batchSize;
+    private final int batchesPerRun;
+
+    public CascadePurgeService(MomentMapper momentMapper,
+                               MomentTimelineMapper timelineMapper,
+                               CommentMapper commentMapper,
+                               LikeMapper likeMapper,
+                               ChatMapper chatMapper,
+                               ChatMemberMapper chatMemberMapper,
+                               MessageMapper messageMapper,
+                               FileService fileService,
+                               MessageArchiveService messageArchiveService,
+                               ExtInfoRepository extInfoRepository,
+                               @Value("${purge.batch-size:500}") int batchSize,
+                               @Value("${purge.batches-per-run:20}") int batchesPerRun) {
+        this.momentMapper = momentMapper;
+        this.timelineMapper = timelineMapper;
+        this.commentMapper = commentMapper;
+        this.likeMapper = likeMapper;
+        this.chatMapper = chatMapper;
+        this.chatMemberMapper = chatMemberMapper;
+        this.messageMapper = messageMapper;
+        this.fileService = fileService;
+        this.messageArchiveService = messageArchiveService;
+        this.extInfoRepository = extInfoRepository;
+        this.batchSize = batchSize;
+        this.batchesPerRun = batchesPerRun;
+    }
+
+    /**
+     * 执行一轮清理，批次数用完或没有待清理的墓碑时返回
+     *
+     * @return 本轮删除的行数
+     */
+    public long purge() {
+        long rows = 0;
+        int batches = 0;
+        while (batches < batchesPerRun) {
+            long deleted = purgeMomentBatch();
+            if (deleted < 0) {
+                break;
+            }
+            rows += deleted;
+            batches++;
+        }
+        while (batches < batchesPerRun) {
+            long deleted = purgeChatBatch();
+            if (deleted < 0) {
+                break;
+            }
+            rows += deleted;
+            batches++;
+        }
+        return rows;
+    }
+
+    /**
+     * @return 删除的行数，没有待清理的动态时为-1
+     */
+    private long purgeMomentBatch() {
+        ExtInfo extInfo = progressOf(ExtInfoKeyName.moment_purge_progress);
+        Progress progress = Progress.parse(extInfo.getKeyValue());
+        if (progress == null) {
+            Long momentId = momentMapper.selectFirstTombstoneId();
+            if (momentId == null) {
+                return -1;
+            }
+            progress = new Progress(momentId, MomentStage.TIMELINE.name(), null);
+        }
+
+        long momentId = progress.targetId();
+        MomentStage stage = MomentStage.valueOf(progress.stage());
+        int rows = switch (stage) {
+            case TIMELINE -> timelineMapper.deleteBatchByMomentId(momentId, batchSize);
+            case COMMENT -> commentMapper.deleteBatchByMomentId(momentId, batchSize);
+            case LIKE -> likeMapper.deleteBatchByMomentId(momentId, batchSize);
+            case MEDIA -> {
+                MomentDO moment = momentMapper.selectTombstoneById(momentId);
+                if (moment != null && moment.getMedias() != null) {
+                    moment.getMedias().forEach(this::deleteFile);
+                }
+                yield 0;
+            }
+            case ROW -> momentMapper.deleteTombstone(momentId);
+        };
+
+        // 按条数删除的阶段删不满一批即完成，其余阶段一次完成
+        boolean batched = stage == MomentStage.TIMELINE || stage == MomentStage.COMMENT || stage == MomentStage.LIKE;
+        if (!batched || rows < batchSize) {
+            if (stage == MomentStage.ROW) {
+                saveProgress(extInfo, null);
+                log.info("已删除动态{}清理完成", momentId);
+            } else {
+                saveProgress(extInfo, new Progress(momentId, MomentStage.values()[stage.ordinal() + 1].name(), null));
+            }
+        } else if (extInfo.getKeyValue() == null) {
+            saveProgress(extInfo, progress);
+        }
+        return rows;
+    }
+
+    /**
+     * @return 删除的行数，没有待清理的聊天时为-1
+     */
+    private long purgeChatBatch() {
+        ExtInfo extInfo = progressOf(ExtInfoKeyName.chat_purge_progress);
+        Progress progress = Progress.parse(extInfo.getKeyValue());
+        if (progress == null) {
+            Long chatId = chatMapper.selectFirstTombstoneId();
+            if (chatId == null) {
+                return -1;
+            }
+            progress = new Progress(chatId, ChatStage.MESSAGE.name(), null);
+        }
+
+        long chatId = progress.targetId();
+        ChatStage stage = ChatStage.valueOf(progress.stage());
+        switch (stage) {
+            case MESSAGE -> {
+                List<MessageDO> messages = messageMapper.selectPurgeBatch(chatId, progress.cursor(), batchSize);
+                if (messages.isEmpty()) {
+                    saveProgress(extInfo, new Progress(chatId, ChatStage.ARCHIVE.name(), null));
+                    return 0;
+                }
+                for (MessageDO message : messages) {
+                    if (MEDIA_TYPES.contains(message.getType())) {
+                        deleteFile(message.getContent());
+                    }
+                }
+                Long lastId = messages.get(messages.size() - 1).getId();
+                int rows = messageMapper.deleteByChatIdUpTo(chatId, lastId);
+                saveProgress(extInfo, messages.size() < batchSize
+                        ? new Progress(chatId, ChatStage.ARCHIVE.name(), null)
+                        : new Progress(chatId, ChatStage.MESSAGE.name(), lastId));
+                return rows;
+            }
+            case ARCHIVE -> {
+                // 归档文件中的消息：先按批清理引用的文件，再移除归档索引
+                Long cursor = progress.cursor() == null ? Long.MIN_VALUE : progress.cursor();
+                List<ArchivedMessage> messages = messageArchiveService.readForPurge(chatId, cursor, batchSize);
+                for (ArchivedMessage message : messages) {
+                    if (MEDIA_TYPES.contains(message.getType())) {
+                        deleteFile(message.getContent());
+                    }
+                }
+                if (messages.size() < batchSize) {
+                    messageArchiveService.purge(chatId);
+                    saveProgress(extInfo, new Progress(chatId, ChatStage.READ_CURSOR.name(), null));
+                } else {
+                    saveProgress(extInfo, new Progress(chatId, ChatStage.ARCHIVE.name(),
+                            messages.get(messages.size() - 1).getId()));
+                }
+                return messages.size();
+            }
+            case READ_CURSOR -> {
+                int rows = messageMapper.deleteBatchReadCursorsByChatId(chatId, batchSize);
+                if (rows < batchSize) {
+                    saveProgress(extInfo, new Progress(chatId, ChatStage.MEMBER.name(), null));
+                }
+                return rows;
+            }
+            case MEMBER -> {
+                // 成员在删除时已移除，这里兜底删除期间并发加入的
+                int rows = chatMemberMapper.deleteByChatId(chatId);
+                saveProgress(extInfo, new Progress(chatId, ChatStage.ROW.name(), null));
+                return rows;
+            }
+            default -> {
+                int rows = chatMapper.deleteTombstone(chatId);
+                saveProgress(extInfo, null);
+                log.info("已删除聊天{}清理完成", chatId);
+                return rows;
+            }
+        }
+    }
+
+    /**
+     * 删除引用的文件，失败(文件已不存在、非本站链接等)只记录日志，不阻塞清理
+     */
+    private void deleteFile(String temporaryAccessUrl) {
+        if (!StringUtils.hasLength(temporaryAccessUrl) || !temporaryAccessUrl.contains("accessCode=")) {
+            return;
+        }
+        try {
+            fileService.delete(fileService.getFileId(temporaryAccessUrl));
+        } catch (RuntimeException e) {
+            log.warn("清理文件失败: {} - {}", temporaryAccessUrl, e.getMessage());
+        }
+    }
+
+    private ExtInfo progressOf(ExtInfoKeyName keyName) {
+        return extInfoRepository.findByKeyName(keyName).orElseGet(() -> new ExtInfo(keyName, null));
+    }
+
+    private void saveProgress(ExtInfo extInfo, Progress progress) {
+        extInfo.setKeyValue(progress == null ? null : progress.format());
+        extInfoRepository.save(extInfo);
+    }
+
+    private enum MomentStage {
+        TIMELINE, COMMENT, LIKE, MEDIA, ROW
+    }
+
+    private enum ChatStage {
+        MESSAGE, ARCHIVE, READ_CURSOR, MEMBER, ROW
+    }
+
+    /**
+     * 清理进度，存储格式为 目标ID:阶段:游标
+     *
+     * @param targetId 正在清理的动态或聊天ID
+     * @param stage    当前阶段
+     * @param cursor   阶段内的游标，可为空
+     */
+    private record Progress(long targetId, String stage, Long cursor) {
+        static Progress parse(String value) {
+            if (!StringUtils.hasLength(value)) {
+                return null;
+            }
+            String[] parts = value.split(":", -1);
+            return new Progress(Long.parseLong(parts[0]), parts[1],
+                    parts[2].isEmpty() ? null : Long.parseLong(parts[2]));
+        }
+
+        String format() {
+            return targetId + ":" + stage + ":" + (cursor == null ? "" : cursor);
+        }
+    }
+}
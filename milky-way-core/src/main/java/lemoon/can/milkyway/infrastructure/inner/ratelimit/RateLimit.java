@@ -0,0 +1,22 @@
+package lemoon.can.milkyway.infrastructure.inner.ratelimit;
+
+import lemoon.can.milkyway.common.enums.RateLimitAction;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在控制器方法上，按当前用户对该动作限流
+ * <p>
+ * multipart上传接口不使用该注解：拦截器执行时请求体已解析，改由 RateLimitFilter 在解析之前限流
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+    RateLimitAction value();
+}
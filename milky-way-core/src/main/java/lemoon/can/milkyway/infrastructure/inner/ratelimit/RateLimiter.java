@@ -0,0 +1,89 @@
+package lemoon.can.milkyway.infrastructure.inner.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lemoon.can.milkyway.common.enums.RateLimitAction;
+import lemoon.can.milkyway.config.properties.RateLimitProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按用户、动作限流
+ * 满桶与新建的桶等价，定时回收，内存只与近期活跃用户数相关
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+public class RateLimiter {
+    private final boolean enabled;
+    private final Map<RateLimitAction, RateLimitProperties.Rule> rules;
+    private final Map<RateLimitAction, Map<String, TokenBucket>> buckets = new EnumMap<>(RateLimitAction.class);
+    private final Map<RateLimitAction, Counter> throttledCounters = new EnumMap<>(RateLimitAction.class);
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.rules = new EnumMap<>(RateLimitAction.class);
+        properties.getRules().forEach((action, rule) -> {
+            if (rule.getCapacity() <= 0 || rule.getRefillPerSecond() <= 0) {
+                throw new IllegalArgumentException("限流规则配置错误:" + action);
+            }
+            rules.put(action, rule);
+        });
+        for (RateLimitAction action : RateLimitAction.values()) {
+            buckets.put(action, new ConcurrentHashMap<>());
+            throttledCounters.put(action, Counter.builder("rate.limit.throttled")
+                    .description("被限流拒绝的请求")
+                    .tag("action", action.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 尝试通过限流
+     *
+     * @param key    限流对象，通常为用户ID
+     * @param action 动作
+     * @return 是否放行
+     */
+    public boolean tryAcquire(String key, RateLimitAction action) {
+        RateLimitProperties.Rule rule = rules.get(action);
+        if (!enabled || rule == null) {
+            return true;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(action).computeIfAbsent(key,
+                k -> new TokenBucket(rule.getCapacity(), rule.getRefillPerSecond(), now));
+        if (bucket.tryAcquire(now)) {
+            return true;
+        }
+        throttledCounters.get(action).increment();
+        return false;
+    }
+
+    /**
+     * 距离下次可以通过的秒数，至少为1
+     */
+    public long retryAfterSeconds(String key, RateLimitAction action) {
+        TokenBucket bucket = buckets.get(action).get(key);
+        if (bucket == null) {
+            return 1;
+        }
+        return Math.max(1, (bucket.nanosUntilAvailable(System.nanoTime()) + 999_999_999L) / 1_000_000_000L);
+    }
+
+    /**
+     * 回收已满的桶
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purge() {
+        long now = System.nanoTime();
+        for (Map<String, TokenBucket> map : buckets.values()) {
+            map.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package lemoon.can.milkyway.infrastructure.inner.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * <p>
+ * 按GCRA方式实现：不保存令牌数，只保存"桶被重新填满的时刻"，取令牌即把该时刻后移一个令牌的生成时间，
+ * 后移后超出当前时刻一个桶容量的时间则拒绝。一次CAS完成，不需要定时补充
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+public class TokenBucket {
+    /**
+     * 生成一个令牌所需的时间
+     */
+    private final long intervalNanos;
+    /**
+     * 生成满桶令牌所需的时间
+     */
+    private final long capacityNanos;
+    /**
+     * 桶被重新填满的时刻(System.nanoTime)，不晚于当前时刻表示桶是满的
+     */
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.intervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.capacityNanos = intervalNanos * capacity;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * 尝试取一个令牌
+     *
+     * @param nowNanos 当前时刻
+     * @return 是否取到
+     */
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - nowNanos < 0 ? nowNanos : current) + intervalNanos;
+            if (next - nowNanos > capacityNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 距离下一个令牌可用的时间
+     */
+    public long nanosUntilAvailable(long nowNanos) {
+        return Math.max(0, fullAt.get() + intervalNanos - capacityNanos - nowNanos);
+    }
+
+    /**
+     * 桶是否已满，满桶等同于新建的桶，可以回收
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
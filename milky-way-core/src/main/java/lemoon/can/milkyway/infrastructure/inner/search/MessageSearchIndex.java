@@ -0,0 +1,357 @@
+package lemoon.can.milkyway.infrastructure.inner.search;
+
+import jakarta.annotation.PostConstruct;
+import lemoon.can.milkyway.common.enums.MessageType;
+import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MessageMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 消息全文索引(增量倒排索引)
+ * <ul>
+ *     <li>写入：发送路径写入内存缓冲，定时刷成不可变的段文件</li>
+ *     <li>合并：段数超过阈值时后台合并为一个段</li>
+ *     <li>恢复：启动时加载段文件，并从消息表补齐最大已索引ID之后的消息</li>
+ *     <li>同步：索引只在本实例，发送路径只写入本实例发送的消息；定时按水位从消息表补齐其他实例发送的消息</li>
+ * </ul>
+ * 只索引文字消息，查询结果为候选集(二元组可能误命中)，由调用方复核原文
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class MessageSearchIndex {
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String SEGMENT_SUFFIX = ".idx";
+    private static final int CATCH_UP_BATCH = 1000;
+    /**
+     * 最近索引的消息ID数，补齐时回退的区间内已索引的消息据此跳过
+     */
+    private static final int RECENT_IDS = 20000;
+
+    private final Path dir;
+    private final int maxSegments;
+    private final MessageMapper messageMapper;
+
+    /**
+     * 结构变更(缓冲区交换、段替换)独占，查询共享
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object liveLock = new Object();
+    private Map<String, PostingList> live = new HashMap<>();
+    private long liveMaxId;
+    private Map<String, PostingList> flushing = Map.of();
+    private List<SearchSegment> segments = List.of();
+    private long nextGeneration = 1;
+    /**
+     * 最近索引的消息ID，受 liveLock 保护
+     */
+    private final Set<Long> recentIds = new LinkedHashSet<>();
+    private final Object catchUpLock = new Object();
+    /**
+     * 已从消息表补齐到的最大消息ID
+     */
+    private long watermark;
+    /**
+     * 启动补齐完成后才开始定时补齐
+     */
+    private volatile boolean caughtUp;
+
+    public MessageSearchIndex(@Value("${search.message.dir:house/index/message}") String dir,
+                              @Value("${search.message.max-segments:8}") int maxSegments,
+                              MessageMapper messageMapper) {
+        this.dir = Paths.get(dir);
+        this.maxSegments = maxSegments;
+        this.messageMapper = messageMapper;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(dir);
+        List<SearchSegment> opened = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(path);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long generation = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    opened.add(SearchSegment.open(path, generation));
+                }
+            }
+        }
+        opened.sort(Comparator.comparingLong(SearchSegment::generation));
+        segments = List.copyOf(opened);
+        nextGeneration = opened.stream().mapToLong(SearchSegment::generation).max().orElse(0) + 1;
+        log.info("消息索引已加载，段数{}", segments.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        watermark = segments.stream().mapToLong(SearchSegment::maxMessageId).max().orElse(0);
+        Thread thread = new Thread(() -> {
+            log.info("消息索引补齐{}条", catchUp());
+            caughtUp = true;
+        }, "search-catch-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 定时补齐其他实例发送的消息
+     */
+    @Scheduled(fixedDelayString = "${search.message.catch-up-interval-ms:5000}")
+    public void poll() {
+        if (!caughtUp) {
+            return;
+        }
+        long count = catchUp();
+        if (count > 0) {
+            log.debug("消息索引补齐{}条", count);
+        }
+    }
+
+    /**
+     * 从水位补齐未索引的消息(停机期间的、其他实例发送的)
+     * 并发提交的消息ID可能乱序，从水位多回退一批，回退区间内已索引的消息跳过
+     *
+     * @return 补齐的消息数
+     */
+    public long catchUp() {
+        synchronized (catchUpLock) {
+            long afterId = Math.max(0, watermark - CATCH_UP_BATCH);
+            long count = 0;
+            List<MessageDO> messages;
+            do {
+                messages = messageMapper.selectTextMessagesAfter(afterId, CATCH_UP_BATCH);
+                for (MessageDO message : messages) {
+                    if (add(message.getId(), message.getChatId(), message.getType(), message.getContent())) {
+                        count++;
+                    }
+                    afterId = message.getId();
+                }
+                watermark = Math.max(watermark, afterId);
+            } while (messages.size() == CATCH_UP_BATCH);
+            return count;
+        }
+    }
+
+    /**
+     * 索引一条消息
+     *
+     * @return 是否新索引，非文字消息或最近已索引时为false
+     */
+    public boolean add(Long messageId, Long chatId, MessageType type, String content) {
+        if (type != MessageType.TEXT) {
+            return false;
+        }
+        Set<String> terms = MessageTokenizer.indexTerms(content);
+        synchronized (liveLock) {
+            if (!recentIds.add(messageId)) {
+                return false;
+            }
+            if (recentIds.size() > RECENT_IDS) {
+                Iterator<Long> eldest = recentIds.iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            for (String term : terms) {
+                live.computeIfAbsent(term, k -> new PostingList()).add(messageId, chatId);
+            }
+            liveMaxId = Math.max(liveMaxId, messageId);
+        }
+        return true;
+    }
+
+    /**
+     * 查询候选消息
+     *
+     * @param keyword 关键词
+     * @param chatIds 聊天范围
+     * @param before  消息ID上界(不包含)，为null时从最新开始
+     * @param limit   数量
+     * @return 按消息ID倒序的候选集
+     */
+    public PostingList search(String keyword, Set<Long> chatIds, Long before, int limit) {
+        Set<String> terms = MessageTokenizer.queryTerms(keyword);
+        if (terms.isEmpty() || chatIds.isEmpty()) {
+            return new PostingList();
+        }
+
+        PostingList matched = null;
+        for (String term : terms) {
+            PostingList postings = termPostings(term).filter(chatIds, before);
+            matched = matched == null ? postings : PostingList.intersect(matched, postings);
+            if (matched.size() == 0) {
+                break;
+            }
+        }
+
+        PostingList result = new PostingList(limit);
+        for (int i = matched.size() - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(matched.messageId(i), matched.chatId(i));
+        }
+        return result;
+    }
+
+    /**
+     * 将内存缓冲刷成段文件
+     */
+    @Scheduled(fixedDelayString = "${search.message.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        long maxId;
+        lock.writeLock().lock();
+        try {
+            synchronized (liveLock) {
+                if (live.isEmpty()) {
+                    return;
+                }
+                flushing = live;
+                maxId = liveMaxId;
+                live = new HashMap<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        SortedMap<String, PostingList> terms = new TreeMap<>();
+        flushing.forEach((term, postings) -> terms.put(term, postings.sorted()));
+        SearchSegment segment;
+        try {
+            segment = writeSegment(terms, maxId);
+        } catch (RuntimeException e) {
+            // 写入失败，放回内存缓冲等待下次刷盘
+            lock.writeLock().lock();
+            try {
+                synchronized (liveLock) {
+                    flushing.forEach((term, postings) -> {
+                        PostingList target = live.computeIfAbsent(term, k -> new PostingList());
+                        for (int i = 0; i < postings.size(); i++) {
+                            target.add(postings.messageId(i), postings.chatId(i));
+                        }
+                    });
+                    liveMaxId = Math.max(liveMaxId, maxId);
+                }
+                flushing = Map.of();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<SearchSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            segments = List.copyOf(updated);
+            flushing = Map.of();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (segments.size() > maxSegments) {
+            merge();
+        }
+    }
+
+    /**
+     * 合并全部段文件
+     */
+    public synchronized void merge() {
+        List<SearchSegment> merging = segments;
+        if (merging.size() < 2) {
+            return;
+        }
+        Set<String> allTerms = new TreeSet<>();
+        for (SearchSegment segment : merging) {
+            segment.terms().forEach(allTerms::add);
+        }
+        SortedMap<String, PostingList> terms = new TreeMap<>();
+        for (String term : allTerms) {
+            List<PostingList> lists = new ArrayList<>();
+            for (SearchSegment segment : merging) {
+                PostingList postings = segment.postings(term);
+                if (postings != null) {
+                    lists.add(postings);
+                }
+            }
+            terms.put(term, PostingList.union(lists));
+        }
+        long maxId = merging.stream().mapToLong(SearchSegment::maxMessageId).max().orElse(0);
+        SearchSegment merged = writeSegment(terms, maxId);
+
+        lock.writeLock().lock();
+        try {
+            List<SearchSegment> updated = new ArrayList<>(segments);
+            updated.removeAll(merging);
+            updated.add(0, merged);
+            segments = List.copyOf(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // 已映射的缓冲区在文件删除后仍可读，正在进行的查询不受影响
+        for (SearchSegment segment : merging) {
+            try {
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                log.warn("删除索引段文件{}失败", segment.path(), e);
+            }
+        }
+        log.info("合并消息索引段{}个", merging.size());
+    }
+
+    private PostingList termPostings(String term) {
+        List<PostingList> lists = new ArrayList<>();
+        List<SearchSegment> snapshot;
+        lock.readLock().lock();
+        try {
+            synchronized (liveLock) {
+                PostingList postings = live.get(term);
+                if (postings != null) {
+                    lists.add(postings.copy().sorted());
+                }
+            }
+            PostingList postings = flushing.get(term);
+            if (postings != null) {
+                lists.add(postings.sorted());
+            }
+            snapshot = segments;
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (SearchSegment segment : snapshot) {
+            PostingList postings = segment.postings(term);
+            if (postings != null) {
+                lists.add(postings);
+            }
+        }
+        return PostingList.union(lists);
+    }
+
+    private SearchSegment writeSegment(SortedMap<String, PostingList> terms, long maxId) {
+        long generation = nextGeneration++;
+        Path path = dir.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, generation, SEGMENT_SUFFIX));
+        try {
+            SearchSegment.write(path, terms, maxId);
+            return SearchSegment.open(path, generation);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
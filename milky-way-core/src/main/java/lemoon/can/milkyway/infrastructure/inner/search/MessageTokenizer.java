@@ -0,0 +1,116 @@
+package lemoon.can.milkyway.infrastructure.inner.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 消息分词
+ * <ul>
+ *     <li>中日韩文字：连续片段切分为单字和相邻二元组(bigram)，索引时两者都写入，查询时片段长度大于1只用二元组</li>
+ *     <li>拉丁字母与数字：按非字母数字字符切分为单词，统一小写</li>
+ * </ul>
+ * 分词前做 NFKC 归一化，全角字符转为半角
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+public class MessageTokenizer {
+    /**
+     * 单词最大长度，超出部分截断
+     */
+    private static final int MAX_WORD_LENGTH = 32;
+
+    private MessageTokenizer() {
+    }
+
+    /**
+     * 索引分词
+     *
+     * @param text 文本
+     * @return 去重后的词项
+     */
+    public static Set<String> indexTerms(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询分词
+     *
+     * @param text 查询文本
+     * @return 去重后的词项，全部命中才算匹配
+     */
+    public static Set<String> queryTerms(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 归一化文本，用于结果复核
+     *
+     * @param text 文本
+     * @return 归一化后的文本
+     */
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> tokenize(String text, boolean forIndex) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = normalize(text);
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, terms);
+                cjk.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjk, terms, forIndex);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, terms);
+                flushCjk(cjk, terms, forIndex);
+            }
+        }
+        flushWord(word, terms);
+        flushCjk(cjk, terms, forIndex);
+        return terms;
+    }
+
+    private static void flushWord(StringBuilder word, Set<String> terms) {
+        if (!word.isEmpty()) {
+            terms.add(word.length() > MAX_WORD_LENGTH ? word.substring(0, MAX_WORD_LENGTH) : word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(StringBuilder cjk, Set<String> terms, boolean forIndex) {
+        if (cjk.isEmpty()) {
+            return;
+        }
+        int[] codePoints = cjk.codePoints().toArray();
+        if (forIndex || codePoints.length == 1) {
+            for (int codePoint : codePoints) {
+                terms.add(new String(Character.toChars(codePoint)));
+            }
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            terms.add(new String(codePoints, i, 2));
+        }
+        cjk.setLength(0);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
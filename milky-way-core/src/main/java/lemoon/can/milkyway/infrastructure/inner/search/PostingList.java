@@ -0,0 +1,194 @@
+package lemoon.can.milkyway.infrastructure.inner.search;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 倒排表：(消息ID, 聊天ID) 对，可按消息ID排序
+ * 编码：count(varint)，之后每条为 消息ID增量(varint) + 聊天ID(varint)
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+public class PostingList {
+    private long[] messageIds;
+    private long[] chatIds;
+    private int size;
+
+    public PostingList() {
+        this(4);
+    }
+
+    public PostingList(int capacity) {
+        this.messageIds = new long[Math.max(capacity, 1)];
+        this.chatIds = new long[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long messageId(int index) {
+        return messageIds[index];
+    }
+
+    public long chatId(int index) {
+        return chatIds[index];
+    }
+
+    public void add(long messageId, long chatId) {
+        if (size == messageIds.length) {
+            messageIds = Arrays.copyOf(messageIds, size * 2);
+            chatIds = Arrays.copyOf(chatIds, size * 2);
+        }
+        messageIds[size] = messageId;
+        chatIds[size] = chatId;
+        size++;
+    }
+
+    public PostingList copy() {
+        PostingList copy = new PostingList(size);
+        System.arraycopy(messageIds, 0, copy.messageIds, 0, size);
+        System.arraycopy(chatIds, 0, copy.chatIds, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * 按消息ID升序排序并去重
+     */
+    public PostingList sorted() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(messageIds[a], messageIds[b]));
+        PostingList sorted = new PostingList(size);
+        for (Integer i : order) {
+            if (sorted.size == 0 || sorted.messageIds[sorted.size - 1] != messageIds[i]) {
+                sorted.add(messageIds[i], chatIds[i]);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * 合并多个升序倒排表，去重
+     *
+     * @param lists 升序倒排表
+     * @return 合并后的升序倒排表
+     */
+    public static PostingList union(List<PostingList> lists) {
+        int total = lists.stream().mapToInt(PostingList::size).sum();
+        PostingList result = new PostingList(total);
+        int[] cursors = new int[lists.size()];
+        while (true) {
+            int min = -1;
+            for (int i = 0; i < lists.size(); i++) {
+                if (cursors[i] < lists.get(i).size
+                        && (min < 0 || lists.get(i).messageIds[cursors[i]] < lists.get(min).messageIds[cursors[min]])) {
+                    min = i;
+                }
+            }
+            if (min < 0) {
+                return result;
+            }
+            PostingList list = lists.get(min);
+            long messageId = list.messageIds[cursors[min]];
+            if (result.size == 0 || result.messageIds[result.size - 1] != messageId) {
+                result.add(messageId, list.chatIds[cursors[min]]);
+            }
+            cursors[min]++;
+        }
+    }
+
+    /**
+     * 求两个升序倒排表的交集
+     */
+    public static PostingList intersect(PostingList a, PostingList b) {
+        PostingList result = new PostingList(Math.min(a.size, b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.messageIds[i] == b.messageIds[j]) {
+                result.add(a.messageIds[i], a.chatIds[i]);
+                i++;
+                j++;
+            } else if (a.messageIds[i] < b.messageIds[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按聊天范围与消息ID上界过滤
+     *
+     * @param chatIds 聊天范围，为null不过滤
+     * @param before  消息ID上界(不包含)，为null不过滤
+     */
+    public PostingList filter(Set<Long> chatIds, Long before) {
+        PostingList result = new PostingList(size);
+        for (int i = 0; i < size; i++) {
+            if ((before == null || messageIds[i] < before)
+                    && (chatIds == null || chatIds.contains(this.chatIds[i]))) {
+                result.add(messageIds[i], this.chatIds[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 编码，要求已按消息ID升序
+     */
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(5 + size * 20);
+        writeVarLong(buffer, size);
+        long prev = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarLong(buffer, messageIds[i] - prev);
+            writeVarLong(buffer, chatIds[i]);
+            prev = messageIds[i];
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * 从缓冲区当前位置解码
+     */
+    public static PostingList decode(ByteBuffer buffer) {
+        int count = (int) readVarLong(buffer);
+        PostingList list = new PostingList(count);
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            long messageId = prev + readVarLong(buffer);
+            list.add(messageId, readVarLong(buffer));
+            prev = messageId;
+        }
+        return list;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,144 @@
+package lemoon.can.milkyway.infrastructure.inner.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * 不可变的索引段文件，通过内存映射读取
+ * <p>
+ * 文件结构：magic(4) maxMessageId(8) termCount(4) 词典 倒排区
+ * 词典每项：termLength(2) term(UTF-8) postingOffset(4) postingLength(4)，偏移相对倒排区起点
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+public class SearchSegment {
+    private static final int MAGIC = 0x4D575349;
+
+    private final Path path;
+    private final long generation;
+    private final long maxMessageId;
+    private final MappedByteBuffer buffer;
+    private final int postingsStart;
+    /**
+     * 词项 -> {偏移, 长度}
+     */
+    private final Map<String, int[]> dictionary;
+
+    private SearchSegment(Path path, long generation, long maxMessageId, MappedByteBuffer buffer,
+                          int postingsStart, Map<String, int[]> dictionary) {
+        this.path = path;
+        this.generation = generation;
+        this.maxMessageId = maxMessageId;
+        this.buffer = buffer;
+        this.postingsStart = postingsStart;
+        this.dictionary = dictionary;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public long maxMessageId() {
+        return maxMessageId;
+    }
+
+    public Iterable<String> terms() {
+        return dictionary.keySet();
+    }
+
+    /**
+     * 读取词项的倒排表
+     *
+     * @param term 词项
+     * @return 升序倒排表，不存在返回null
+     */
+    public PostingList postings(String term) {
+        int[] location = dictionary.get(term);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer slice = buffer.slice(postingsStart + location[0], location[1]);
+        return PostingList.decode(slice);
+    }
+
+    /**
+     * 写入段文件：先写临时文件并刷盘，再原子重命名
+     *
+     * @param path         目标路径
+     * @param terms        按词项排序的升序倒排表
+     * @param maxMessageId 段内最大消息ID
+     */
+    public static void write(Path path, SortedMap<String, PostingList> terms, long maxMessageId) throws IOException {
+        Map<String, byte[]> encoded = new HashMap<>(terms.size() * 2);
+        int dictionaryLength = 0;
+        for (Map.Entry<String, PostingList> entry : terms.entrySet()) {
+            encoded.put(entry.getKey(), entry.getValue().encode());
+            dictionaryLength += 2 + entry.getKey().getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+        int postingsLength = encoded.values().stream().mapToInt(bytes -> bytes.length).sum();
+
+        ByteBuffer out = ByteBuffer.allocate(16 + dictionaryLength + postingsLength);
+        out.putInt(MAGIC).putLong(maxMessageId).putInt(terms.size());
+        int offset = 0;
+        for (String term : terms.keySet()) {
+            byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+            int length = encoded.get(term).length;
+            out.putShort((short) termBytes.length).put(termBytes).putInt(offset).putInt(length);
+            offset += length;
+        }
+        for (String term : terms.keySet()) {
+            out.put(encoded.get(term));
+        }
+        out.flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 打开段文件
+     *
+     * @param path       路径
+     * @param generation 段序号
+     */
+    public static SearchSegment open(Path path, long generation) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("索引段文件损坏:" + path);
+        }
+        long maxMessageId = buffer.getLong();
+        int termCount = buffer.getInt();
+        Map<String, int[]> dictionary = new HashMap<>(termCount * 2);
+        for (int i = 0; i < termCount; i++) {
+            byte[] termBytes = new byte[buffer.getShort()];
+            buffer.get(termBytes);
+            dictionary.put(new String(termBytes, StandardCharsets.UTF_8), new int[]{buffer.getInt(), buffer.getInt()});
+        }
+        return new SearchSegment(path, generation, maxMessageId, buffer, buffer.position(), dictionary);
+    }
+}
@@ -0,0 +1,28 @@
+package lemoon.can.milkyway.infrastructure.inner.session;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的会话失效通知，仅适用于单节点部署
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+public class LocalSessionInvalidationChannel implements SessionInvalidationChannel {
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String userId) {
+        listeners.forEach(listener -> listener.accept(userId));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,119 @@
+package lemoon.can.milkyway.infrastructure.inner.session;
+
+import lemoon.can.milkyway.infrastructure.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 登录会话缓存，用于单设备登录校验
+ * 按用户ID缓存最后登录token的指纹，登录、登出时通过{@link SessionInvalidationChannel}失效，TTL兜底
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Component
+public class LoginSessionCache {
+    /**
+     * 失效版本条带数
+     */
+    private static final int STRIPES = 1024;
+    /**
+     * 已登出(没有有效token)的指纹
+     */
+    private static final byte[] NONE = new byte[0];
+
+    private final UserRepository userRepository;
+    private final SessionInvalidationChannel channel;
+    private final long ttlNanos;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    /**
+     * 按用户ID分条带的失效版本号，避免失效前发起的数据库查询把旧token写回缓存
+     */
+    private final AtomicLongArray invalidateStamps = new AtomicLongArray(STRIPES);
+
+    public LoginSessionCache(UserRepository userRepository,
+                             SessionInvalidationChannel channel,
+                             @Value("${security.session-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.channel = channel;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        channel.subscribe(this::evict);
+    }
+
+    /**
+     * 判断token是否为用户当前的登录token
+     *
+     * @param userId 用户ID
+     * @param token  请求携带的token
+     * @return 是否有效
+     */
+    public boolean isCurrent(String userId, String token) {
+        byte[] fingerprint = fingerprint(token);
+        Session session = sessions.get(userId);
+        if (session != null && System.nanoTime() - session.loadedAt < ttlNanos
+                && MessageDigest.isEqual(session.fingerprint, fingerprint)) {
+            return true;
+        }
+        // 未命中、过期或不一致时以数据库为准
+        return MessageDigest.isEqual(load(userId).fingerprint, fingerprint);
+    }
+
+    /**
+     * 登录、登出后调用，通知所有节点清除该用户的缓存
+     *
+     * @param userId 用户ID
+     */
+    public void invalidate(String userId) {
+        channel.publish(userId);
+    }
+
+    /**
+     * 清除本节点缓存
+     *
+     * @param userId 用户ID
+     */
+    public void evict(String userId) {
+        invalidateStamps.incrementAndGet(stripe(userId));
+        sessions.remove(userId);
+    }
+
+    /**
+     * 清理过期会话
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purge() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(session -> now - session.loadedAt >= ttlNanos);
+    }
+
+    private Session load(String userId) {
+        long stamp = invalidateStamps.get(stripe(userId));
+        String lastLoginToken = userRepository.findLastLoginTokenBy(userId);
+        Session session = new Session(lastLoginToken == null ? NONE : fingerprint(lastLoginToken), System.nanoTime());
+        sessions.compute(userId, (k, v) -> invalidateStamps.get(stripe(userId)) == stamp ? session : v);
+        return session;
+    }
+
+    private static byte[] fingerprint(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int stripe(String userId) {
+        return (userId.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private record Session(byte[] fingerprint, long loadedAt) {
+    }
+}
@@ -0,0 +1,26 @@
+package lemoon.can.milkyway.infrastructure.inner.session;
+
+import java.util.function.Consumer;
+
+/**
+ * 登录会话失效通知通道
+ * 多节点部署时提供基于消息中间件的实现(标注 @Primary)，使各节点同时清除本地缓存
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+public interface SessionInvalidationChannel {
+    /**
+     * 广播用户会话失效，包括本节点
+     *
+     * @param userId 用户ID
+     */
+    void publish(String userId);
+
+    /**
+     * 订阅会话失效通知
+     *
+     * @param listener 监听器，参数为用户ID
+     */
+    void subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,152 @@
+package lemoon.can.milkyway.infrastructure.inner.timeline;
+
+import lemoon.can.milkyway.infrastructure.repository.mapper.FriendMapper;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MomentMapper;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MomentTimelineMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 好友动态时间线(推拉结合)
+ * <ul>
+ *     <li>推：发布时把动态ID写入发布者自己及每个好友的时间线，读取时按主键范围扫描</li>
+ *     <li>拉：好友数超过阈值的发布者只写自己的时间线，读者读取时合并这些发布者的最新动态</li>
+ *     <li>每个时间线只保留最新的 cap 条，超出部分由后台任务裁剪</li>
+ * </ul>
+ * 写入与业务操作在同一事务中，发布、加删好友后时间线立即一致；
+ * 删除的动态在加载动态内容时过滤，时间线中的记录由后台级联清理
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+public class MomentTimeline {
+    private static final int INSERT_BATCH = 500;
+
+    private final MomentTimelineMapper timelineMapper;
+    private final FriendMapper friendMapper;
+    private final MomentMapper momentMapper;
+    private final int cap;
+    private final int fanOutLimit;
+    /**
+     * 最近写入过、可能超出 cap 的时间线
+     */
+    private final Set<String> untrimmed = ConcurrentHashMap.newKeySet();
+
+    public MomentTimeline(MomentTimelineMapper timelineMapper,
+                          FriendMapper friendMapper,
+                          MomentMapper momentMapper,
+                          @Value("${moment.timeline.cap:1000}") int cap,
+                          @Value("${moment.timeline.fan-out-limit:1000}") int fanOutLimit) {
+        this.timelineMapper = timelineMapper;
+        this.friendMapper = friendMapper;
+        this.momentMapper = momentMapper;
+        this.cap = cap;
+        this.fanOutLimit = fanOutLimit;
+    }
+
+    /**
+     * 发布动态
+     *
+     * @param momentId      动态ID
+     * @param publishUserId 发布用户ID
+     */
+    public void publish(Long momentId, String publishUserId) {
+        List<String> recipients = new ArrayList<>();
+        recipients.add(publishUserId);
+        List<String> friendIds = friendMapper.selectFriendIds(publishUserId);
+        if (friendIds.size() > fanOutLimit) {
+            // 好友过多，改为读者拉取
+            timelineMapper.insertPullPublisher(publishUserId);
+        } else {
+            recipients.addAll(friendIds);
+        }
+        for (int from = 0; from < recipients.size(); from += INSERT_BATCH) {
+            timelineMapper.batchInsert(momentId, publishUserId,
+                    recipients.subList(from, Math.min(from + INSERT_BATCH, recipients.size())));
+        }
+        untrimmed.addAll(recipients);
+    }
+
+    /**
+     * 成为好友：补齐对方最近的动态
+     *
+     * @param userId   读者用户ID
+     * @param friendId 好友ID
+     */
+    public void follow(String userId, String friendId) {
+        timelineMapper.backfill(userId, friendId, cap);
+        untrimmed.add(userId);
+    }
+
+    /**
+     * 删除好友：移除对方的动态
+     *
+     * @param userId   读者用户ID
+     * @param friendId 好友ID
+     */
+    public void unfollow(String userId, String friendId) {
+        timelineMapper.deleteByPublisher(userId, friendId);
+    }
+
+    /**
+     * 读取时间线
+     *
+     * @param userId   读者用户ID
+     * @param lastId   分页游标(取 < lastId)，为null时从最新开始
+     * @param pageSize 数量
+     * @return 倒序的动态ID
+     */
+    public List<Long> read(String userId, Long lastId, int pageSize) {
+        List<Long> pushed = timelineMapper.selectMomentIds(userId, lastId, pageSize);
+        List<String> pullFriendIds = timelineMapper.selectPullFriendIds(userId);
+        if (pullFriendIds.isEmpty()) {
+            return pushed;
+        }
+        List<Long> pulled = momentMapper.selectIdsByPublishUserIds(pullFriendIds, lastId, pageSize);
+
+        // 两路均为倒序，归并去重(发布者转为拉取前推送的动态会同时出现在两路中)
+        List<Long> merged = new ArrayList<>(pageSize);
+        int i = 0;
+        int j = 0;
+        while (merged.size() < pageSize && (i < pushed.size() || j < pulled.size())) {
+            long next;
+            if (j >= pulled.size() || (i < pushed.size() && pushed.get(i) >= pulled.get(j))) {
+                next = pushed.get(i++);
+            } else {
+                next = pulled.get(j++);
+            }
+            if (merged.isEmpty() || merged.get(merged.size() - 1) != next) {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 裁剪超出 cap 的时间线
+     */
+    @Scheduled(fixedDelayString = "${moment.timeline.trim-interval-ms:60000}")
+    public void trim() {
+        int trimmed = 0;
+        for (String userId : untrimmed) {
+            untrimmed.remove(userId);
+            try {
+                trimmed += timelineMapper.trim(userId, cap);
+            } catch (RuntimeException e) {
+                log.warn("裁剪用户{}的时间线失败", userId, e);
+            }
+        }
+        if (trimmed > 0) {
+            log.info("裁剪时间线{}条", trimmed);
+        }
+    }
+}
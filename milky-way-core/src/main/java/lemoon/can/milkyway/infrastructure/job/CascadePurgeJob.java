@@ -0,0 +1,36 @@
+package lemoon.can.milkyway.infrastructure.job;
+
+import lemoon.can.milkyway.infrastructure.inner.purge.CascadePurgeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 已删除动态、聊天的级联清理
+ * 每轮的批次数有上限，清理速度由批大小、批次数和执行间隔共同限制
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@RequiredArgsConstructor
+@Component
+@Slf4j
+public class CascadePurgeJob {
+    private final CascadePurgeService cascadePurgeService;
+
+    @Value("${purge.enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${purge.interval-ms:5000}")
+    public void execute() {
+        if (!enabled) {
+            return;
+        }
+        long rows = cascadePurgeService.purge();
+        if (rows > 0) {
+            log.info("级联清理删除{}行", rows);
+        }
+    }
+}
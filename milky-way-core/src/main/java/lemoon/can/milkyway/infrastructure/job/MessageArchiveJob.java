@@ -0,0 +1,34 @@
+package lemoon.can.milkyway.infrastructure.job;
+
+import lemoon.can.milkyway.infrastructure.inner.archive.MessageArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 冷消息归档
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@RequiredArgsConstructor
+@Component
+@Slf4j
+public class MessageArchiveJob {
+    private final MessageArchiveService messageArchiveService;
+
+    @Value("${archive.message.enabled:false}")
+    private boolean enabled;
+
+    @Scheduled(cron = "0 0 5 * * *", zone = "Asia/Shanghai")
+    public void execute() {
+        if (!enabled) {
+            return;
+        }
+        log.info("执行消息归档任务");
+        long count = messageArchiveService.archive();
+        log.info("消息归档完成，共归档{}条", count);
+    }
+}
@@ -0,0 +1,67 @@
+package lemoon.can.milkyway.infrastructure.job;
+
+import lemoon.can.milkyway.infrastructure.repository.mapper.MessageMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 消息表分区维护
+ * 消息表按月RANGE分区，p_max 为兜底分区；提前从 p_max 拆出未来几个月的分区，
+ * 保证拆分时 p_max 为空，REORGANIZE 不需要搬迁数据。
+ * 拆分前检查 p_max，已有数据(如长时间未运行)时不拆分，只记录错误，避免锁表搬迁
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@RequiredArgsConstructor
+@Component
+@Slf4j
+public class MessagePartitionJob {
+    /**
+     * 提前创建的月份数
+     */
+    private static final int MONTHS_AHEAD = 3;
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter BOUNDARY = DateTimeFormatter.ofPattern("yyyy-MM-01 00:00:00");
+
+    private final MessageMapper messageMapper;
+
+    @Scheduled(cron = "0 30 3 * * *", zone = "Asia/Shanghai")
+    public void execute() {
+        List<String> partitions = messageMapper.selectPartitionNames();
+        if (!partitions.contains("p_max")) {
+            log.warn("消息表未分区，跳过分区维护");
+            return;
+        }
+
+        // 只能在最后一个月分区之后追加
+        YearMonth latest = partitions.stream()
+                .filter(name -> !"p_max".equals(name))
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .max(YearMonth::compareTo)
+                .orElse(null);
+        // 从已有的最后一个月之后连续补齐到未来几个月，中间缺失的月份一并创建
+        YearMonth end = YearMonth.now().plusMonths(MONTHS_AHEAD);
+        YearMonth month = latest == null ? YearMonth.now() : latest.plusMonths(1);
+        if (month.isAfter(end)) {
+            return;
+        }
+        // p_max 有数据时拆分会在锁表状态下搬迁数据，需人工处理
+        if (messageMapper.countPartitionMaxRows() > 0) {
+            log.error("消息表p_max分区中已有数据，跳过分区维护，请在低峰期手动拆分{}之后的分区", latest);
+            return;
+        }
+        for (; !month.isAfter(end); month = month.plusMonths(1)) {
+            String partitionName = month.format(PARTITION_NAME);
+            String lessThan = month.plusMonths(1).format(BOUNDARY);
+            messageMapper.addPartition(partitionName, lessThan);
+            log.info("创建消息表分区{}，上界{}", partitionName, lessThan);
+        }
+    }
+}
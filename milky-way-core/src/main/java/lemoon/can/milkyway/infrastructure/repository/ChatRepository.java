@@ -9,5 +9,8 @@ import lemoon.can.milkyway.domain.chat.Chat;
 public interface ChatRepository {
     Chat findById(Long id);
     <T extends Chat<?>> Long save(T chat);
+    /**
+     * 删除聊天：标记墓碑并移除成员，消息、已读游标等由后台级联清理
+     */
     void delete(Long id);
 }
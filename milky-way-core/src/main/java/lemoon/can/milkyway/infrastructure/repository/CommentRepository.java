@@ -8,5 +8,4 @@ import org.springframework.data.repository.CrudRepository;
  * @since 2025/6/3
  */
 public interface CommentRepository extends CrudRepository<Comment, Long> {
-    void deleteByMomentId(Long momentId);
 }
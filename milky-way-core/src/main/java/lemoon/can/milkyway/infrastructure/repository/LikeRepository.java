@@ -9,5 +9,4 @@ import org.springframework.data.repository.CrudRepository;
  * @since 2025/6/3
  */
 public interface LikeRepository extends CrudRepository<Like, LikeId> {
-    void deleteByMomentId(Long momentId);
 }
@@ -2,8 +2,11 @@ package lemoon.can.milkyway.infrastructure.repository;
 
 import lemoon.can.milkyway.domain.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -19,4 +22,23 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     @Query("SELECT u.loginInfo.lastLoginToken FROM users u WHERE u.id = :id")
     String findLastLoginTokenBy(String id);
+
+    /**
+     * 记录登录信息，只更新登录相关的列，不覆盖登录期间其他请求修改的密码等字段
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE users u SET u.loginInfo.logged = 1, u.loginInfo.lastLoginTime = :loginTime, " +
+            "u.loginInfo.lastLoginToken = :token WHERE u.id = :id")
+    int login(String id, String token, LocalDateTime loginTime);
+
+    /**
+     * 升级密码哈希，仅当密码仍为旧哈希时更新
+     *
+     * @return 更新行数，为0表示期间密码已修改
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE users u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int upgradePassword(String id, String oldPassword, String newPassword);
 }
@@ -16,15 +16,30 @@ public class CommentDO {
      */
     private Long id;
 
+    /**
+     * 动态ID
+     */
+    private Long momentId;
+
     /**
      * 父评论id
      */
     private Long parentCommentId;
 
+    /**
+     * 所属顶级评论ID，顶级评论为空
+     */
+    private Long rootCommentId;
+
     /**
      * 评论用户信息
      */
     private UserDO user;
+
+    /**
+     * 被回复评论的用户信息(仅回复)
+     */
+    private UserDO replyUser;
     
     /**
      * 评论内容
@@ -37,7 +52,7 @@ public class CommentDO {
     private LocalDateTime createTime;
 
     /**
-     * 层级
+     * 回复数(仅顶级评论)
      */
-    private int level;
+    private int replyCounts;
 }
@@ -0,0 +1,17 @@
+package lemoon.can.milkyway.infrastructure.repository.dos;
+
+import lombok.Data;
+
+/**
+ * 点赞用户(带动态ID，用于批量查询后按动态分组)
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+public class LikeUserDO {
+    private Long momentId;
+    private String userId;
+    private String userNickName;
+    private String userAvatar;
+}
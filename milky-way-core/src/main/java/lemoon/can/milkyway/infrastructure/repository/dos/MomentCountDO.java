@@ -0,0 +1,18 @@
+package lemoon.can.milkyway.infrastructure.repository.dos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 动态计数增量
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Data
+@AllArgsConstructor
+public class MomentCountDO {
+    private Long momentId;
+    private long likeDelta;
+    private long commentDelta;
+}
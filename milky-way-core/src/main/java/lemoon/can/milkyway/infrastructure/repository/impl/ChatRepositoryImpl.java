@@ -77,7 +77,8 @@ public class ChatRepositoryImpl implements ChatRepository {
 
     @Override
     public void delete(Long id) {
-        chatMapper.deleteById(id);
+        // 只标记删除并移除成员，消息等由后台级联清理
+        chatMapper.markDeleted(id);
         chatMemberMapper.deleteByChatId(id);
     }
 }
@@ -14,22 +14,37 @@ import java.util.List;
  */
 @Mapper
 public interface ChatMapper {
-    @Select("SELECT COUNT(*)>0 FROM chat WHERE id = #{id}")
+    @Select("SELECT COUNT(*)>0 FROM chat WHERE id = #{id} AND deleted_time IS NULL")
     boolean existsById(Long id);
 
     @Insert("INSERT INTO chat(id, type, title, bulletin,extra_info) VALUES(#{id}, #{type}, #{title}, #{bulletin}, #{extraInfo})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     Long insert(ChatDO chatDO);
 
-    @Select("SELECT * FROM chat WHERE id = #{id}")
+    @Select("SELECT * FROM chat WHERE id = #{id} AND deleted_time IS NULL")
     ChatDO selectById(Long id);
 
-    @Delete("DELETE FROM chat WHERE id = #{id}")
-    int deleteById(Long id);
+    /**
+     * 标记删除(墓碑)，消息等关联数据由后台清理
+     *
+     * @param id 聊天ID
+     * @return 影响行数，已删除时为0
+     */
+    @Update("UPDATE chat SET deleted_time = NOW() WHERE id = #{id} AND deleted_time IS NULL")
+    int markDeleted(Long id);
+
+    /**
+     * 查询最早的一条墓碑
+     */
+    @Select("SELECT id FROM chat WHERE deleted_time IS NOT NULL ORDER BY deleted_time, id LIMIT 1")
+    Long selectFirstTombstoneId();
+
+    @Delete("DELETE FROM chat WHERE id = #{id} AND deleted_time IS NOT NULL")
+    int deleteTombstone(Long id);
 
     int update(ChatDO param);
 
-    @Select("SELECT type FROM chat WHERE id = #{id}")
+    @Select("SELECT type FROM chat WHERE id = #{id} AND deleted_time IS NULL")
     ChatType selectTypeById(Long id);
 
     ChatInfoDO findSingleChat(String userId, String friendUserId);
@@ -55,8 +70,18 @@ public interface ChatMapper {
      */
     ChatInfoDO selectChatInfoById(Long id);
 
+    /**
+     * 批量查询聊天信息，仅返回用户所在的聊天
+     *
+     * @param userId  用户ID
+     * @param chatIds 聊天ID列表
+     * @return 聊天信息列表(无序)
+     */
+    List<ChatInfoDO> findChatsByIds(@Param("userId") String userId,
+                                    @Param("chatIds") List<Long> chatIds);
+
     @Select("select id from chat " +
-            "where type='single' " +
+            "where type='single' and deleted_time is null " +
             "and id in(select chat_id from chat_member where user_id in(#{userId1}, #{userId2}) group by chat_id having count(*)=2)")
     List<Long> selectSingleChatIdByMember(String userId1, String userId2);
 
@@ -25,6 +25,9 @@ public interface ChatMemberMapper {
     @Select("select user_id from chat_member where chat_id = #{chatId}")
     List<String> selectMemberUserIdsByChatId(Long chatId);
 
+    @Select("SELECT chat_id FROM chat_member WHERE user_id = #{userId}")
+    List<Long> selectChatIdsByUserId(String userId);
+
     @Delete("DELETE FROM chat_member WHERE chat_id = #{chatId}")
     int deleteByChatId(Long chatId);
 
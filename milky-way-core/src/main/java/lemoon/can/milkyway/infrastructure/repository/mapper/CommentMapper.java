@@ -2,10 +2,12 @@ package lemoon.can.milkyway.infrastructure.repository.mapper;
 
 import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
 import lemoon.can.milkyway.infrastructure.repository.dos.CommentDO;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,20 +18,51 @@ import java.util.List;
 @Mapper
 public interface CommentMapper {
     /**
-     * 查询动态的评论信息（包含回复）
+     * 分页查询动态的顶级评论(按评论ID升序)，带回复数
      *
      * @param momentId 动态ID
-     * @return 评论信息列表
+     * @param lastId   上一页最后一条评论ID，为null时从头开始
+     * @param limit    数量
+     * @return 顶级评论
      */
-    List<CommentDO> selectComments(@Param("momentId") Long momentId);
+    List<CommentDO> selectTopComments(@Param("momentId") Long momentId,
+                                      @Param("lastId") Long lastId,
+                                      @Param("limit") int limit);
 
     /**
-     * 查询动态的评论信息(简单升序)
+     * 批量查询多条动态的前若干条顶级评论，每条动态各自限量
      *
-     * @param momentId 动态ID
-     * @return 评论信息列表
+     * @param momentIds 动态ID
+     * @param limit     每条动态的数量
+     * @return 按动态ID、评论ID升序排列的顶级评论，带动态ID和回复数
+     */
+    List<CommentDO> selectFirstTopComments(@Param("momentIds") Collection<Long> momentIds,
+                                           @Param("limit") int limit);
+
+    /**
+     * 批量查询多条顶级评论下的前若干条回复，每条顶级评论各自限量
+     *
+     * @param rootIds 顶级评论ID
+     * @param limit   每条顶级评论的回复数量
+     * @return 按顶级评论ID、评论ID升序排列的回复，带被回复用户
      */
-    List<CommentDO> simpleSelectComments(@Param("momentId") Long momentId);
+    List<CommentDO> selectFirstReplies(@Param("rootIds") Collection<Long> rootIds,
+                                       @Param("limit") int limit);
+
+    /**
+     * 分页查询顶级评论下的回复(按评论ID升序)
+     *
+     * @param rootId 顶级评论ID
+     * @param lastId 上一页最后一条回复ID，为null时从头开始
+     * @param limit  数量
+     * @return 回复，带被回复用户
+     */
+    List<CommentDO> selectReplies(@Param("rootId") Long rootId,
+                                  @Param("lastId") Long lastId,
+                                  @Param("limit") int limit);
+
+    @Delete("DELETE FROM comment WHERE moment_id = #{momentId} LIMIT #{limit}")
+    int deleteBatchByMomentId(@Param("momentId") Long momentId, @Param("limit") int limit);
 
     /**
      * 查询评论用户信息
@@ -1,9 +1,12 @@
 package lemoon.can.milkyway.infrastructure.repository.mapper;
 
 import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
+import lemoon.can.milkyway.infrastructure.repository.dos.LikeUserDO;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,4 +23,15 @@ public interface LikeMapper {
      * @return 点赞用户信息列表
      */
     List<SimpleUserDTO> selectLikeUsers(@Param("momentId") Long momentId);
+
+    /**
+     * 批量查询多条动态的点赞用户信息
+     *
+     * @param momentIds 动态ID
+     * @return 按动态ID、点赞时间倒序排列的点赞用户
+     */
+    List<LikeUserDO> selectLikeUsersByMomentIds(@Param("momentIds") Collection<Long> momentIds);
+
+    @Delete("DELETE FROM likes WHERE moment_id = #{momentId} LIMIT #{limit}")
+    int deleteBatchByMomentId(@Param("momentId") Long momentId, @Param("limit") int limit);
 } 
\ No newline at end of file
@@ -1,9 +1,16 @@
 package lemoon.can.milkyway.infrastructure.repository.mapper;
 
+import lemoon.can.milkyway.infrastructure.inner.archive.ArchivedMessage;
 import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -32,6 +39,25 @@ public interface MessageMapper {
      */
     List<MessageDO> getMessagesAfter(Long chatId, Long after, int pageSize);
 
+    /**
+     * 查询目标消息及其前后的消息
+     *
+     * @param chatId 聊天ID
+     * @param around 目标消息ID
+     * @param limit  每侧的消息数量
+     * @return 按ID正序的消息列表
+     */
+    List<MessageDO> getMessagesAround(@Param("chatId") Long chatId, @Param("around") Long around, @Param("limit") int limit);
+
+    /**
+     * 按ID正序流式读取聊天消息，需在独立的 SqlSession 中使用并在读完后关闭
+     *
+     * @param chatId  聊天ID
+     * @param afterId 起始消息ID(不包含)
+     * @return 消息游标
+     */
+    Cursor<MessageDO> streamMessages(@Param("chatId") Long chatId, @Param("afterId") Long afterId);
+
     /**
      * 查询指定时间之前的多媒体消息
      *
@@ -40,4 +66,131 @@ public interface MessageMapper {
      * @return 多媒体消息列表
      */
     List<MessageDO> getMediaMessagesBefore(Long afterId, LocalDateTime beforeTime);
+
+    /**
+     * 查询已删除聊天的一批消息，用于后台清理
+     *
+     * @param chatId  聊天ID
+     * @param afterId 游标(取 > afterId)，为null时从头开始
+     * @param limit   数量
+     * @return 按ID升序的消息(id、type、content)
+     */
+    List<MessageDO> selectPurgeBatch(@Param("chatId") Long chatId,
+                                     @Param("afterId") Long afterId,
+                                     @Param("limit") int limit);
+
+    /**
+     * 删除聊天中ID不超过 toId 的消息，配合 {@link #selectPurgeBatch} 分批清理
+     */
+    @Delete("DELETE FROM message WHERE chat_id = #{chatId} AND id <= #{toId}")
+    int deleteByChatIdUpTo(@Param("chatId") Long chatId, @Param("toId") Long toId);
+
+    @Delete("DELETE FROM message_read_cursor WHERE chat_id = #{chatId} LIMIT #{limit}")
+    int deleteBatchReadCursorsByChatId(@Param("chatId") Long chatId, @Param("limit") int limit);
+
+    /**
+     * 查询消息表的分区名称，未分区时返回空列表
+     *
+     * @return 分区名称列表
+     */
+    @Select("SELECT partition_name FROM information_schema.partitions " +
+            "WHERE table_schema = DATABASE() AND table_name = 'message' AND partition_name IS NOT NULL " +
+            "ORDER BY partition_ordinal_position")
+    List<String> selectPartitionNames();
+
+    /**
+     * p_max 分区中是否有数据
+     *
+     * @return 有数据时为1
+     */
+    @Select("SELECT COUNT(*) FROM (SELECT 1 FROM message PARTITION (p_max) LIMIT 1) t")
+    int countPartitionMaxRows();
+
+    /**
+     * 从 p_max 中拆出一个新的月分区
+     *
+     * @param partitionName 分区名称
+     * @param lessThan      分区上界(不包含)，格式 yyyy-MM-dd HH:mm:ss
+     */
+    @Update("ALTER TABLE message REORGANIZE PARTITION p_max INTO (" +
+            "PARTITION ${partitionName} VALUES LESS THAN (UNIX_TIMESTAMP('${lessThan}')), " +
+            "PARTITION p_max VALUES LESS THAN MAXVALUE)")
+    void addPartition(@Param("partitionName") String partitionName, @Param("lessThan") String lessThan);
+
+    /**
+     * 查询有早于指定时间消息的聊天，已删除的聊天由级联清理处理，不再归档
+     *
+     * @param beforeTime 指定时间
+     * @return 聊天ID列表
+     */
+    @Select("SELECT DISTINCT m.chat_id FROM message m JOIN chat c ON c.id = m.chat_id " +
+            "WHERE m.sent_time < #{beforeTime} AND c.deleted_time IS NULL")
+    List<Long> selectChatIdsBefore(@Param("beforeTime") LocalDateTime beforeTime);
+
+    /**
+     * 查询聊天中早于指定时间的最大消息ID，聊天的最后一条消息除外
+     *
+     * @param chatId     聊天ID
+     * @param beforeTime 指定时间
+     * @return 消息ID，没有则返回null
+     */
+    @Select("SELECT MAX(id) FROM message " +
+            "WHERE chat_id = #{chatId} AND sent_time < #{beforeTime} " +
+            "AND id < (SELECT MAX(id) FROM message WHERE chat_id = #{chatId})")
+    Long selectMaxIdBefore(@Param("chatId") Long chatId, @Param("beforeTime") LocalDateTime beforeTime);
+
+    /**
+     * 按ID区间正序查询待归档消息
+     *
+     * @param chatId 聊天ID
+     * @param afterId 起始消息ID(不包含)
+     * @param maxId  结束消息ID(包含)
+     * @param limit  数量
+     * @return 消息列表
+     */
+    @Select("SELECT id, chat_id, sender_id, type, content, sent_time FROM message " +
+            "WHERE chat_id = #{chatId} AND id > #{afterId} AND id <= #{maxId} " +
+            "ORDER BY id LIMIT #{limit}")
+    List<ArchivedMessage> selectForArchive(@Param("chatId") Long chatId,
+                                           @Param("afterId") Long afterId,
+                                           @Param("maxId") Long maxId,
+                                           @Param("limit") int limit);
+
+    /**
+     * 按ID区间删除聊天消息
+     *
+     * @param chatId 聊天ID
+     * @param minId  起始消息ID(包含)
+     * @param maxId  结束消息ID(包含)
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM message WHERE chat_id = #{chatId} AND id BETWEEN #{minId} AND #{maxId}")
+    int deleteByChatIdBetween(@Param("chatId") Long chatId, @Param("minId") Long minId, @Param("maxId") Long maxId);
+
+    /**
+     * 将归档消息写回消息表(保留原ID，已存在则忽略)
+     *
+     * @param messages 归档消息
+     * @return 插入行数
+     */
+    int restoreArchived(@Param("messages") List<ArchivedMessage> messages);
+
+    /**
+     * 按ID正序查询指定ID之后的文字消息，用于补齐全文索引
+     *
+     * @param afterId 起始消息ID(不包含)
+     * @param limit   数量
+     * @return 消息列表，只包含ID、聊天ID、类型和内容
+     */
+    @Select("SELECT id, chat_id, type, content FROM message " +
+            "WHERE type = 'TEXT' AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<MessageDO> selectTextMessagesAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 根据ID批量查询消息
+     *
+     * @param ids 消息ID
+     * @return 消息列表，无序
+     */
+    List<MessageDO> selectByIds(@Param("ids") Collection<Long> ids);
 }
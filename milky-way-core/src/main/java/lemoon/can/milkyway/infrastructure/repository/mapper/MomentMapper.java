@@ -1,10 +1,10 @@
 package lemoon.can.milkyway.infrastructure.repository.mapper;
 
+import lemoon.can.milkyway.infrastructure.repository.dos.MomentCountDO;
 import lemoon.can.milkyway.infrastructure.repository.dos.MomentDO;
-import org.apache.ibatis.annotations.Mapper;
-import org.apache.ibatis.annotations.Param;
-import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.*;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,15 +14,24 @@ import java.util.List;
 @Mapper
 public interface MomentMapper {
     /**
-     * 查询好友动态
+     * 按ID批量查询动态
      *
-     * @param userId 用户ID
-     * @param lastId 分页游标（取 < lastId 的 20 条）
-     * @return 20 条动态及作者信息
+     * @param ids 动态ID
+     * @return 按ID倒序的动态及作者信息
      */
-    List<MomentDO> listFriendMoments(@Param("userId") String userId,
-                                     @Param("lastId") Long lastId,
-                                     @Param("pageSize") int pageSize);
+    List<MomentDO> selectMomentsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询多个发布者的动态ID，用于读扩散的发布者
+     *
+     * @param publishUserIds 发布用户ID
+     * @param lastId         分页游标(取 < lastId)，为null时从最新开始
+     * @param pageSize       数量
+     * @return 倒序的动态ID
+     */
+    List<Long> selectIdsByPublishUserIds(@Param("publishUserIds") Collection<String> publishUserIds,
+                                         @Param("lastId") Long lastId,
+                                         @Param("pageSize") int pageSize);
 
     /**
      * 查询个人动态
@@ -36,14 +45,61 @@ public interface MomentMapper {
                                      @Param("pageSize") int pageSize);
 
 
-    @Select("SELECT publish_user_id FROM moment WHERE id = #{id}")
+    /**
+     * 批量累加点赞数、评论数，单条语句原子执行
+     *
+     * @param deltas 增量
+     * @return 影响行数
+     */
+    int addCounts(@Param("deltas") List<MomentCountDO> deltas);
+
+    @Select("SELECT publish_user_id FROM moment WHERE id = #{id} AND deleted_time IS NULL")
     String selectPublishUserIdById(@Param("id") Long id);
 
-    @Select("SELECT id, content_type, text, medias FROM moment WHERE publish_user_id = #{publishUserId} order by id desc limit 1")
+    @Select("SELECT id, content_type, text, medias FROM moment WHERE publish_user_id = #{publishUserId} AND deleted_time IS NULL order by id desc limit 1")
     MomentDO selectLastMomentByPublishUserId(String publishUserId);
 
-    @Select("SELECT id, content_type, text, medias FROM moment WHERE id = #{id}")
-    MomentDO getMomentDescriptionById(Long id);
+    /**
+     * 确认动态未删除，并以共享锁锁定到事务结束，期间标记删除需等待
+     *
+     * @param id 动态ID
+     * @return 动态ID，不存在或已删除时为null
+     */
+    @Select("SELECT id FROM moment WHERE id = #{id} AND deleted_time IS NULL FOR SHARE")
+    Long selectAliveIdForShare(Long id);
+
+    /**
+     * 查询点赞数、评论数
+     *
+     * @param id 动态ID
+     * @return 只含点赞数、评论数，动态不存在或已删除时为null
+     */
+    @Select("SELECT like_counts, comment_counts FROM moment WHERE id = #{id} AND deleted_time IS NULL")
+    MomentDO selectCountsById(Long id);
+
+    /**
+     * 标记删除(墓碑)，关联数据由后台清理
+     *
+     * @param id 动态ID
+     * @return 影响行数，已删除时为0
+     */
+    @Update("UPDATE moment SET deleted_time = NOW() WHERE id = #{id} AND deleted_time IS NULL")
+    int markDeleted(Long id);
+
+    /**
+     * 查询最早的一条墓碑
+     */
+    @Select("SELECT id FROM moment WHERE deleted_time IS NOT NULL ORDER BY deleted_time, id LIMIT 1")
+    Long selectFirstTombstoneId();
+
+    /**
+     * 查询墓碑的媒体内容
+     */
+    @Select("SELECT id, content_type, medias FROM moment WHERE id = #{id} AND deleted_time IS NOT NULL")
+    MomentDO selectTombstoneById(Long id);
+
+    @Delete("DELETE FROM moment WHERE id = #{id} AND deleted_time IS NOT NULL")
+    int deleteTombstone(Long id);
 
     /**
      * 根据ID查询动态
@@ -0,0 +1,70 @@
+package lemoon.can.milkyway.infrastructure.repository.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 动态时间线(写扩散收件箱)
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Mapper
+public interface MomentTimelineMapper {
+    /**
+     * 把一条动态写入多个读者的时间线
+     *
+     * @param momentId      动态ID
+     * @param publishUserId 发布用户ID
+     * @param userIds       读者用户ID
+     */
+    void batchInsert(@Param("momentId") Long momentId,
+                     @Param("publishUserId") String publishUserId,
+                     @Param("userIds") Collection<String> userIds);
+
+    /**
+     * 分页查询时间线中的动态ID
+     *
+     * @param userId   读者用户ID
+     * @param lastId   分页游标(取 < lastId)，为null时从最新开始
+     * @param pageSize 数量
+     * @return 倒序的动态ID
+     */
+    List<Long> selectMomentIds(@Param("userId") String userId,
+                               @Param("lastId") Long lastId,
+                               @Param("pageSize") int pageSize);
+
+    @Delete("DELETE FROM moment_timeline WHERE moment_id = #{momentId} LIMIT #{limit}")
+    int deleteBatchByMomentId(@Param("momentId") Long momentId, @Param("limit") int limit);
+
+    @Delete("DELETE FROM moment_timeline WHERE user_id = #{userId} AND publish_user_id = #{publishUserId}")
+    int deleteByPublisher(@Param("userId") String userId, @Param("publishUserId") String publishUserId);
+
+    /**
+     * 新好友：把对方最近的动态补进时间线
+     */
+    @Insert("INSERT IGNORE INTO moment_timeline(user_id, moment_id, publish_user_id) " +
+            "SELECT #{userId}, id, publish_user_id FROM moment WHERE publish_user_id = #{publishUserId} AND deleted_time IS NULL " +
+            "ORDER BY id DESC LIMIT #{limit}")
+    int backfill(@Param("userId") String userId, @Param("publishUserId") String publishUserId, @Param("limit") int limit);
+
+    /**
+     * 只保留最新的 cap 条
+     */
+    @Delete("DELETE FROM moment_timeline WHERE user_id = #{userId} AND moment_id <= (" +
+            "SELECT moment_id FROM (SELECT moment_id FROM moment_timeline WHERE user_id = #{userId} " +
+            "ORDER BY moment_id DESC LIMIT 1 OFFSET #{cap}) t)")
+    int trim(@Param("userId") String userId, @Param("cap") int cap);
+
+    @Insert("INSERT IGNORE INTO moment_pull_publisher(user_id) VALUES(#{userId})")
+    int insertPullPublisher(String userId);
+
+    /**
+     * 查询用户好友中读扩散的发布者
+     */
+    @Select("SELECT f.friend_id FROM friend f JOIN moment_pull_publisher p ON p.user_id = f.friend_id " +
+            "WHERE f.user_id = #{userId}")
+    List<String> selectPullFriendIds(String userId);
+}
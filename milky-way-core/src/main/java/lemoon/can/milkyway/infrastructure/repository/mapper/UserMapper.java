@@ -3,8 +3,10 @@ package lemoon.can.milkyway.infrastructure.repository.mapper;
 import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
 import lemoon.can.milkyway.infrastructure.repository.dos.UserDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -19,6 +21,14 @@ public interface UserMapper {
     @Select("select id, open_id, nick_name, avatar,nick_name_first_letter from users where id= #{id}")
     SimpleUserDTO selectSimpleById(String id);
 
+    /**
+     * 批量查询用户简要信息
+     *
+     * @param ids 用户ID集合
+     * @return 用户简要信息(无序)
+     */
+    List<SimpleUserDTO> selectSimpleByIds(@Param("ids") Collection<String> ids);
+
     @Select("select id, open_id, phone, nick_name, avatar, individual_signature, register_time from users where id = #{id}")
     UserDO selectUserById(String id);
 
@@ -0,0 +1,32 @@
+package lemoon.can.milkyway.infrastructure.repository.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+/**
+ * 雪花算法WorkerID租约，时间均以数据库时钟为准，避免实例间时钟偏差
+ *
+ * @author lemoon
+ * @since 2026/10/19
+ */
+@Mapper
+public interface WorkerLeaseMapper {
+    @Insert("INSERT IGNORE INTO worker_lease(worker_id, owner, expire_time) VALUES(#{workerId}, '', NOW())")
+    int insertIfAbsent(int workerId);
+
+    /**
+     * 领取租约：未被持有或已过期时才能领取
+     */
+    @Update("UPDATE worker_lease SET owner = #{owner}, expire_time = DATE_ADD(NOW(), INTERVAL #{leaseSeconds} SECOND) " +
+            "WHERE worker_id = #{workerId} AND (owner = #{owner} OR expire_time < NOW())")
+    int acquire(@Param("workerId") int workerId, @Param("owner") String owner, @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 续期：只有持有者可以续期，已过期但未被他人领取时仍可续上
+     */
+    @Update("UPDATE worker_lease SET expire_time = DATE_ADD(NOW(), INTERVAL #{leaseSeconds} SECOND) " +
+            "WHERE worker_id = #{workerId} AND owner = #{owner}")
+    int renew(@Param("workerId") int workerId, @Param("owner") String owner, @Param("leaseSeconds") int leaseSeconds);
+
+    @Update("UPDATE worker_lease SET expire_time = NOW() WHERE worker_id = #{workerId} AND owner = #{owner}")
+    int release(@Param("workerId") int workerId, @Param("owner") String owner);
+}
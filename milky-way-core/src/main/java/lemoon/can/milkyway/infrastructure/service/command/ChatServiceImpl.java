@@ -15,6 +15,7 @@ import lemoon.can.milkyway.infrastructure.converter.ChatConverter;
 import lemoon.can.milkyway.infrastructure.converter.helper.SecureIdConverterHelper;
 import lemoon.can.milkyway.infrastructure.inner.chat.ChatProcessorManager;
 import lemoon.can.milkyway.infrastructure.inner.chat.GroupChatProcessor;
+import lemoon.can.milkyway.infrastructure.inner.chat.RecentMessageCache;
 import lemoon.can.milkyway.infrastructure.repository.ChatRepository;
 import lemoon.can.milkyway.infrastructure.repository.MessageReadCursorRepository;
 import lemoon.can.milkyway.infrastructure.repository.MessageRepository;
@@ -56,6 +57,7 @@ public class ChatServiceImpl implements ChatService {
     private final GroupChatProcessor groupChatProcessor;
     private final AiAssistantService aiAssistantService;
     private final UserMapper userMapper;
+    private final RecentMessageCache recentMessageCache;
 
     @Transactional
     @Override
@@ -99,14 +101,17 @@ public class ChatServiceImpl implements ChatService {
         //TODO 权限校验
         Long chatId = secureId.simpleDecode(param.getChatId(), secureId.getChatSalt());
         ChatType chatType = chatMapper.selectTypeById(chatId);
+        if (chatType == null) {
+            return;
+        }
         List<String> memberUserIds = chatMemberMapper.selectMemberUserIdsByChatId(chatId);
+        // 只标记删除，消息、已读游标、媒体文件由后台级联清理
         chatRepository.delete(chatId);
 
-        chatMemberMapper.deleteByChatId(chatId);
-
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                recentMessageCache.evict(chatId);
                 chatProcessorManager.pushChatDeletedMsg(chatId, param.getOperateUserId(), chatType, memberUserIds);
             }
         });
@@ -11,6 +11,7 @@ import lemoon.can.milkyway.domain.file.FileMetaInfo;
 import lemoon.can.milkyway.facade.dto.AccessToken;
 import lemoon.can.milkyway.facade.dto.FileDTO;
 import lemoon.can.milkyway.facade.dto.FileInfoDTO;
+import lemoon.can.milkyway.facade.dto.MediaInfoDTO;
 import lemoon.can.milkyway.facade.param.FileParam;
 import lemoon.can.milkyway.facade.service.command.FileService;
 import lemoon.can.milkyway.infrastructure.inner.VideoService;
@@ -31,7 +32,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author lemoon
@@ -157,6 +160,9 @@ public class FileServiceImpl implements FileService {
     @Override
     public String generateTemporaryAccessUrl(String fileId, Long expireInSeconds) {
         long expireAtSec = (System.currentTimeMillis() + expireInSeconds * 1000) / 1000;
+        // 向上取整到粒度边界，有效期最多延长一个粒度
+        long bucket = FileConstant.TEMPORARY_URL_EXPIRE_BUCKET_SECONDS;
+        expireAtSec = (expireAtSec + bucket - 1) / bucket * bucket;
         String accessCode = accessTokenManager.build(fileId, expireAtSec, secretKey);
         return env.getDomain() + env.getFileAccessUrl() + "?accessCode=" + accessCode;
     }
@@ -199,6 +205,46 @@ public class FileServiceImpl implements FileService {
         }
     }
 
+    @Override
+    public Map<String, MediaInfoDTO> resolveMedia(Collection<String> temporaryAccessUrls) {
+        Map<String, AccessToken> accessTokens = new HashMap<>();
+        for (String temporaryAccessUrl : temporaryAccessUrls) {
+            if (temporaryAccessUrl == null || accessTokens.containsKey(temporaryAccessUrl)) {
+                continue;
+            }
+            try {
+                accessTokens.put(temporaryAccessUrl, getAccessToken(temporaryAccessUrl));
+            } catch (Exception e) {
+                log.error("解析临时访问链接失败: {}", temporaryAccessUrl, e);
+            }
+        }
+        if (accessTokens.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<String> fileIds = accessTokens.values().stream()
+                .map(AccessToken::getObjectId)
+                .filter(StringUtils::hasLength)
+                .collect(Collectors.toSet());
+        Map<String, FileMetaInfo> fileMetaInfos = fileMetaInfoRepository.findAllById(fileIds).stream()
+                .collect(Collectors.toMap(FileMetaInfo::getId, Function.identity()));
+
+        Map<String, MediaInfoDTO> result = new HashMap<>(accessTokens.size() * 2);
+        accessTokens.forEach((temporaryAccessUrl, accessToken) -> {
+            MediaInfoDTO mediaInfo = new MediaInfoDTO();
+            FileMetaInfo fileMetaInfo = fileMetaInfos.get(accessToken.getObjectId());
+            if (fileMetaInfo != null) {
+                mediaInfo.setFileName(fileMetaInfo.getName());
+                if (StringUtils.hasLength(fileMetaInfo.getVideoCoverImage())) {
+                    mediaInfo.setVideoCoverImageUrl(
+                            generateTemporaryAtAccessUrl(fileMetaInfo.getVideoCoverImage(), accessToken.getExpireAt()));
+                }
+            }
+            result.put(temporaryAccessUrl, mediaInfo);
+        });
+        return result;
+    }
+
     @Override
     public boolean expire(String temporaryAccessUrl) {
         try {
@@ -16,6 +16,7 @@ import lemoon.can.milkyway.facade.param.FriendOperateParam;
 import lemoon.can.milkyway.facade.service.command.ChatService;
 import lemoon.can.milkyway.facade.service.command.FriendService;
 import lemoon.can.milkyway.infrastructure.inner.mp.MessagePushService;
+import lemoon.can.milkyway.infrastructure.inner.timeline.MomentTimeline;
 import lemoon.can.milkyway.infrastructure.repository.FriendApplicationRepository;
 import lemoon.can.milkyway.infrastructure.repository.FriendRepository;
 import lemoon.can.milkyway.infrastructure.repository.mapper.ChatMapper;
@@ -42,6 +43,7 @@ public class FriendServiceImpl implements FriendService {
     private final MessagePushService messagePushService;
     private final ChatMapper chatMapper;
     private final ChatMemberMapper chatMemberMapper;
+    private final MomentTimeline momentTimeline;
 
     @Override
     @Transactional
@@ -101,6 +103,8 @@ public class FriendServiceImpl implements FriendService {
 
         friendRepository.save(friend1);
         friendRepository.save(friend2);
+        momentTimeline.follow(friendApplication.getFromUserId(), friendApplication.getToUserId());
+        momentTimeline.follow(friendApplication.getToUserId(), friendApplication.getFromUserId());
 
         //1.创建单聊
         ChatCreateParam chatCreateParam = new ChatCreateParam();
@@ -126,10 +130,13 @@ public class FriendServiceImpl implements FriendService {
     public void deleteFriend(FriendOperateParam param) {
         friendRepository.deleteById(new FriendId(param.getFromUserId(), param.getToUserId()));
         friendRepository.deleteById(new FriendId(param.getToUserId(), param.getFromUserId()));
+        momentTimeline.unfollow(param.getFromUserId(), param.getToUserId());
+        momentTimeline.unfollow(param.getToUserId(), param.getFromUserId());
 
         List<Long> chatIds = chatMapper.selectSingleChatIdByMember(param.getFromUserId(), param.getToUserId());
         chatIds.forEach((chatId)->{
-            chatMapper.deleteById(chatId);
+            // 只标记删除，消息由后台级联清理
+            chatMapper.markDeleted(chatId);
             chatMemberMapper.deleteByChatId(chatId);
         });
     }
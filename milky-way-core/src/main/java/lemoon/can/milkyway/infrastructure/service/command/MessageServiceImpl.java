@@ -7,13 +7,17 @@ import lemoon.can.milkyway.domain.chat.Chat;
 import lemoon.can.milkyway.domain.chat.Message;
 import lemoon.can.milkyway.domain.user.User;
 import lemoon.can.milkyway.facade.dto.MessageDTO;
+import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
 import lemoon.can.milkyway.facade.param.MessageSendParam;
 import lemoon.can.milkyway.facade.service.command.MessageService;
 import lemoon.can.milkyway.infrastructure.converter.MessageConverter;
 import lemoon.can.milkyway.infrastructure.inner.chat.ChatProcessorManager;
+import lemoon.can.milkyway.infrastructure.inner.chat.RecentMessageCache;
+import lemoon.can.milkyway.infrastructure.inner.search.MessageSearchIndex;
 import lemoon.can.milkyway.infrastructure.repository.ChatRepository;
 import lemoon.can.milkyway.infrastructure.repository.MessageRepository;
 import lemoon.can.milkyway.infrastructure.repository.UserRepository;
+import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +37,8 @@ public class MessageServiceImpl implements MessageService {
     private final UserRepository userRepository;
     private final ChatRepository chatRepository;
     private final ChatProcessorManager chatProcessorManager;
+    private final RecentMessageCache recentMessageCache;
+    private final MessageSearchIndex messageSearchIndex;
 
     @Override
     @Transactional
@@ -50,6 +56,8 @@ public class MessageServiceImpl implements MessageService {
             @Override
             public void afterCommit() {
                 // 事务提交后的逻辑
+                recentMessageCache.append(toMessageDO(message, sender));
+                messageSearchIndex.add(message.getId(), message.getChatId(), message.getType(), message.getContent());
                 Chat chat = chatRepository.findById(message.getChatId());
                 chatProcessorManager.pushMessage(chat, messageDTO);
             }
@@ -57,4 +65,21 @@ public class MessageServiceImpl implements MessageService {
 
         return messageDTO;
     }
+
+    private MessageDO toMessageDO(Message message, User sender) {
+        SimpleUserDTO senderDTO = new SimpleUserDTO();
+        senderDTO.setId(sender.getId());
+        senderDTO.setOpenId(sender.getOpenId());
+        senderDTO.setNickName(sender.getNickName());
+        senderDTO.setAvatar(sender.getAvatar());
+
+        MessageDO messageDO = new MessageDO();
+        messageDO.setId(message.getId());
+        messageDO.setChatId(message.getChatId());
+        messageDO.setSender(senderDTO);
+        messageDO.setType(message.getType());
+        messageDO.setContent(message.getContent());
+        messageDO.setSentTime(message.getSentTime());
+        return messageDO;
+    }
 }
@@ -11,7 +11,11 @@ import lemoon.can.milkyway.facade.dto.UnlikeDTO;
 import lemoon.can.milkyway.facade.param.CommentParam;
 import lemoon.can.milkyway.facade.param.PublishParam;
 import lemoon.can.milkyway.facade.service.command.MomentService;
+import lemoon.can.milkyway.infrastructure.inner.comment.CommentPages;
+import lemoon.can.milkyway.infrastructure.inner.counter.MomentCounter;
+import lemoon.can.milkyway.infrastructure.inner.moment.MomentHeaderCache;
 import lemoon.can.milkyway.infrastructure.inner.mp.MessagePushService;
+import lemoon.can.milkyway.infrastructure.inner.timeline.MomentTimeline;
 import lemoon.can.milkyway.infrastructure.repository.CommentRepository;
 import lemoon.can.milkyway.infrastructure.repository.LikeRepository;
 import lemoon.can.milkyway.infrastructure.repository.MomentRepository;
@@ -37,6 +41,10 @@ public class MomentServiceImpl implements MomentService {
     private final SecureId secureId;
     private final MessagePushService messagePushService;
     private final MomentMapper momentMapper;
+    private final MomentTimeline momentTimeline;
+    private final MomentCounter momentCounter;
+    private final CommentPages commentPages;
+    private final MomentHeaderCache momentHeaderCache;
 
     @Transactional
     @Override
@@ -44,6 +52,7 @@ public class MomentServiceImpl implements MomentService {
         Moment moment = new Moment(param.getContentType(), param.getText(), param.getMedias(), param.getPublishUserId());
         moment.setLocation(param.getLocation());
         momentRepository.save(moment);
+        momentTimeline.publish(moment.getId(), moment.getPublishUserId());
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
@@ -60,13 +69,16 @@ public class MomentServiceImpl implements MomentService {
     public void delete(String momentId) {
         Long realMomentId = secureId.simpleDecode(momentId, secureId.getMomentSalt());
         String publishUserId = momentMapper.selectPublishUserIdById(realMomentId);
-        momentRepository.deleteById(realMomentId);
-        commentRepository.deleteByMomentId(realMomentId);
-        likeRepository.deleteByMomentId(realMomentId);
+        // 只标记删除，评论、点赞、时间线、媒体文件由后台级联清理
+        if (momentMapper.markDeleted(realMomentId) == 0) {
+            return;
+        }
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                momentHeaderCache.invalidate(realMomentId);
+                commentPages.invalidate(realMomentId);
                 messagePushService.momentDeleteMsg(momentId, publishUserId);
             }
         });
@@ -76,22 +88,23 @@ public class MomentServiceImpl implements MomentService {
     @Override
     public String like(String momentId, String userId) {
         Long realMomentId = secureId.simpleDecode(momentId, secureId.getMomentSalt());
-        Moment moment = momentRepository.findById(realMomentId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND, "内容不存在"));
+        // 与评论相同，不用动态头缓存判断：缓存可能仍保留已删除的动态，点赞会在后台清理之后写入而无人清理
+        if (momentMapper.selectAliveIdForShare(realMomentId) == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND, "内容不存在");
+        }
         Optional<Like> likeOptional = likeRepository.findById(new LikeId(realMomentId, userId));
         if (likeOptional.isPresent()) {
             return likeOptional.get().getLikeUserId();
         }
 
-        moment.addLike();
-        momentRepository.save(moment);
-
         Like like = new Like(realMomentId, userId);
         likeRepository.save(like);
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                // 点赞数由计数器批量写回，不更新动态行
+                momentCounter.addLike(realMomentId, 1);
                 messagePushService.likeMsg(like);
             }
         });
@@ -103,19 +116,20 @@ public class MomentServiceImpl implements MomentService {
     public void unlike(String momentId, String userId) {
         Long realMomentId = secureId.simpleDecode(momentId, secureId.getMomentSalt());
 
-        Moment moment = momentRepository.findById(realMomentId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND, "内容不存在"));
-        String publishUserId = moment.getPublishUserId();
+        MomentHeaderCache.MomentHeader header = momentHeaderCache.get(realMomentId);
+        if (header == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND, "内容不存在");
+        }
+        String publishUserId = header.publishUserId();
         if (likeRepository.findById(new LikeId(realMomentId, userId)).isEmpty()) {
             return;
         }
-        moment.removeLike();
-        momentRepository.save(moment);
         likeRepository.deleteById(new LikeId(realMomentId, userId));
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                momentCounter.addLike(realMomentId, -1);
                 UnlikeDTO unlikeDTO = new UnlikeDTO();
                 unlikeDTO.setMomentId(momentId);
                 unlikeDTO.setUserId(userId);
@@ -129,14 +143,26 @@ public class MomentServiceImpl implements MomentService {
     @Override
     public Long comment(CommentParam param) {
         Long realMomentId = secureId.simpleDecode(param.getMomentId(), secureId.getMomentSalt());
+        // 已删除的动态不能评论，否则评论会在后台清理评论之后写入而无人清理；锁定后删除需等待本事务提交
+        if (momentMapper.selectAliveIdForShare(realMomentId) == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND, "内容不存在");
+        }
         Comment comment = new Comment(realMomentId, param.getCommentUserId(), param.getContent());
-        comment.setParentCommentId(param.getParentCommentId());
+        if (param.getParentCommentId() != null) {
+            Comment parent = commentRepository.findById(param.getParentCommentId())
+                    .filter(c -> c.getMomentId().equals(realMomentId))
+                    .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND, "回复的评论不存在"));
+            comment.setParentCommentId(parent.getId());
+            comment.setRootCommentId(parent.getRootCommentId() != null ? parent.getRootCommentId() : parent.getId());
+        }
 
         commentRepository.save(comment);
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                momentCounter.addComment(realMomentId, 1);
+                commentPages.invalidate(realMomentId);
                 messagePushService.commentMsg(comment);
             }
         });
@@ -3,7 +3,7 @@ package lemoon.can.milkyway.infrastructure.service.command;
 import lemoon.can.milkyway.common.exception.BusinessException;
 import lemoon.can.milkyway.common.exception.ErrorCode;
 import lemoon.can.milkyway.common.utils.security.JwtTokenProvider;
-import lemoon.can.milkyway.domain.user.LoginInfo;
+import lemoon.can.milkyway.common.utils.security.OffloadedPasswordEncoder;
 import lemoon.can.milkyway.domain.user.User;
 import lemoon.can.milkyway.facade.dto.UserDTO;
 import lemoon.can.milkyway.facade.param.UserChangePasswordParam;
@@ -11,14 +11,17 @@ import lemoon.can.milkyway.facade.param.UserOpenIdLoginParam;
 import lemoon.can.milkyway.facade.param.UserPhoneLoginParam;
 import lemoon.can.milkyway.facade.param.UserRegisterParam;
 import lemoon.can.milkyway.facade.service.command.UserService;
+import lemoon.can.milkyway.infrastructure.inner.session.LoginSessionCache;
 import lemoon.can.milkyway.infrastructure.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
@@ -27,13 +30,15 @@ import java.time.LocalDateTime;
  * @author lemoon
  * @since 2025/4/25
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
-    private final PasswordEncoder passwordEncoder;
+    private final OffloadedPasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
+    private final LoginSessionCache loginSessionCache;
 
     @Transactional
     @Override
@@ -79,7 +84,6 @@ public class UserServiceImpl implements UserService {
         return login(param.getPassword(), user);
     }
 
-    @Transactional
     @Override
     public String loginByPhone(UserPhoneLoginParam param) {
         User user = userRepository.findByPhone(param.getPhone())
@@ -88,23 +92,39 @@ public class UserServiceImpl implements UserService {
         return login(param.getPassword(), user);
     }
 
+    /**
+     * 登录不开启事务：密码校验可能在BCrypt线程池排队数秒，期间不占用数据库连接；
+     * 校验通过后登录信息单独一条更新提交
+     */
     private String login(String password, User user) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(user.getId(), password));
 
         String token = jwtTokenProvider.createToken(authentication);
 
-        LoginInfo loginInfo = LoginInfo.builder()
-                .logged(1)
-                .lastLoginTime(LocalDateTime.now())
-                .lastLoginToken(token)
-                .build();
-        user.login(loginInfo);
-        userRepository.save(user);
+        userRepository.login(user.getId(), token, LocalDateTime.now());
+        invalidateSession(user.getId());
+        upgradePassword(user, password);
 
         return token;
     }
 
+    /**
+     * 密码哈希的cost与配置不一致时重新编码，尽力而为：线程池空闲时在后台计算，繁忙时跳过，下次登录再升级
+     */
+    private void upgradePassword(User user, String password) {
+        String oldPassword = user.getPassword();
+        if (!passwordEncoder.upgradeEncoding(oldPassword)) {
+            return;
+        }
+        passwordEncoder.encodeIfIdle(password, newPassword -> {
+            // 期间修改过密码时不覆盖
+            if (userRepository.upgradePassword(user.getId(), oldPassword, newPassword) == 0) {
+                log.info("用户{}的密码已变更，跳过哈希升级", user.getId());
+            }
+        });
+    }
+
     @Transactional
     @Override
     public void logout(String id) {
@@ -112,5 +132,22 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow();
         user.logout();
         userRepository.save(user);
+        invalidateSession(id);
+    }
+
+    /**
+     * 清除登录会话缓存，有事务时在提交后执行，避免其他请求读到未提交前的token并重新缓存
+     */
+    private void invalidateSession(String userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            loginSessionCache.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                loginSessionCache.invalidate(userId);
+            }
+        });
     }
 }
@@ -1,24 +1,38 @@
 package lemoon.can.milkyway.infrastructure.service.query;
 
+import lemoon.can.milkyway.common.exception.BusinessException;
+import lemoon.can.milkyway.common.exception.ErrorCode;
 import lemoon.can.milkyway.facade.dto.ChatInfoDTO;
 import lemoon.can.milkyway.facade.dto.MessageInfoDTO;
 import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
 import lemoon.can.milkyway.facade.dto.Slices;
+import lemoon.can.milkyway.facade.param.ChatBatchQueryParam;
 import lemoon.can.milkyway.facade.param.ChatMessagesQueryParam;
+import lemoon.can.milkyway.facade.param.MessageExportParam;
+import lemoon.can.milkyway.facade.param.MessageSearchParam;
 import lemoon.can.milkyway.facade.service.query.ChatQueryService;
 import lemoon.can.milkyway.infrastructure.converter.ChatConverter;
 import lemoon.can.milkyway.infrastructure.converter.MessageConverter;
 import lemoon.can.milkyway.infrastructure.converter.helper.SecureIdConverterHelper;
+import lemoon.can.milkyway.infrastructure.inner.archive.MessageArchiveService;
+import lemoon.can.milkyway.infrastructure.inner.chat.MessageExporter;
+import lemoon.can.milkyway.infrastructure.inner.chat.RecentMessageCache;
+import lemoon.can.milkyway.infrastructure.inner.search.MessageSearchIndex;
+import lemoon.can.milkyway.infrastructure.inner.search.MessageTokenizer;
+import lemoon.can.milkyway.infrastructure.inner.search.PostingList;
 import lemoon.can.milkyway.infrastructure.repository.dos.ChatInfoDO;
 import lemoon.can.milkyway.infrastructure.repository.dos.MessageDO;
 import lemoon.can.milkyway.infrastructure.repository.mapper.ChatMapper;
+import lemoon.can.milkyway.infrastructure.repository.mapper.ChatMemberMapper;
 import lemoon.can.milkyway.infrastructure.repository.mapper.MessageMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -28,11 +42,21 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class ChatQueryServiceImpl implements ChatQueryService {
+    /**
+     * 一次搜索最多取候选的轮数(每轮一次索引查询和一次按ID查询)
+     */
+    private static final int SEARCH_MAX_ROUNDS = 5;
+
     private final ChatMapper chatMapper;
     private final ChatConverter chatConverter;
     private final MessageMapper messageMapper;
     private final SecureIdConverterHelper secureIdConverterHelper;
     private final MessageConverter messageConverter;
+    private final RecentMessageCache recentMessageCache;
+    private final MessageArchiveService messageArchiveService;
+    private final ChatMemberMapper chatMemberMapper;
+    private final MessageSearchIndex messageSearchIndex;
+    private final MessageExporter messageExporter;
 
     @Override
     public ChatInfoDTO getSingleChat(String userId, String friendUserId) {
@@ -76,27 +100,48 @@ public class ChatQueryServiceImpl implements ChatQueryService {
         return new Slices<>(chatDtoList, hasNext);
     }
 
+    @Override
+    public List<ChatInfoDTO> getChatInfos(ChatBatchQueryParam param) {
+        List<Long> chatIds = secureIdConverterHelper.decodeChatIds(param.getChatIds())
+                .stream()
+                .distinct()
+                .toList();
+        Map<Long, ChatInfoDO> chatInfoMap = chatMapper.findChatsByIds(param.getOperatorUserId(), chatIds)
+                .stream()
+                .collect(Collectors.toMap(ChatInfoDO::getId, Function.identity()));
+
+        // 按入参顺序返回
+        List<ChatInfoDTO> chatInfos = new ArrayList<>(chatInfoMap.size());
+        for (Long chatId : chatIds) {
+            ChatInfoDO chatInfoDO = chatInfoMap.get(chatId);
+            if (chatInfoDO != null) {
+                chatInfos.add(chatConverter.toDto(chatInfoDO));
+            }
+        }
+        return chatInfos;
+    }
+
     @Override
     public Slices<MessageInfoDTO> getChatMessages(ChatMessagesQueryParam param) {
-        List<MessageInfoDTO> messageDTOS = new ArrayList<>();
+        List<MessageInfoDTO> messageDTOS;
+        Long chatId = secureIdConverterHelper.decodeChatId(param.getChatId());
+        if (StringUtils.hasLength(param.getAround())) {
+            return getMessagesAround(chatId, secureIdConverterHelper.decodeMessageId(param.getAround()), param.getPageSize());
+        }
         boolean hasNext;
         //向后滚动
         if (StringUtils.hasLength(param.getAfter())) {
-            List<MessageDO> messageDos = messageMapper.getMessagesAfter(
-                    secureIdConverterHelper.decodeChatId(param.getChatId()),
+            List<MessageDO> messageDos = getMessagesAfter(chatId,
                     secureIdConverterHelper.decodeMessageId(param.getAfter()),
                     param.getPageSize() + 1);
             hasNext = messageDos.size() > param.getPageSize();
             if (hasNext) {
                 messageDos.remove((messageDos.size() - 1));
             }
-            messageDTOS = messageDos.stream()
-                    .map(messageConverter::toMessageInfoDTO)
-                    .toList();
+            messageDTOS = messageConverter.toMessageInfoDTOs(messageDos);
         } else {
             //向前滚动
-            List<MessageDO> messageDos = messageMapper.getMessagesBefore(
-                    secureIdConverterHelper.decodeChatId(param.getChatId()),
+            List<MessageDO> messageDos = getMessagesBefore(chatId,
                     StringUtils.hasLength(param.getBefore()) ? secureIdConverterHelper.decodeMessageId(param.getBefore()) : null,
                     param.getPageSize() + 1);
             hasNext = messageDos.size() > param.getPageSize();
@@ -104,14 +149,212 @@ public class ChatQueryServiceImpl implements ChatQueryService {
                 messageDos.remove((messageDos.size() - 1));
             }
 
-            for (int i = messageDos.size() - 1; i >= 0; i--) {
-                messageDTOS.add(messageConverter.toMessageInfoDTO(messageDos.get(i)));
-            }
+            Collections.reverse(messageDos);
+            messageDTOS = messageConverter.toMessageInfoDTOs(messageDos);
         }
 
         return new Slices<>(messageDTOS, hasNext);
     }
 
+    /**
+     * 查询目标消息及其前后各 pageSize 条消息
+     * 目标消息在消息表中时一次查询取回两侧，更早一侧不足时从归档补齐；已归档时分两次读取
+     *
+     * @param chatId   聊天ID
+     * @param around   目标消息ID
+     * @param pageSize 每侧的消息数量
+     * @return 按ID正序的消息列表
+     */
+    private Slices<MessageInfoDTO> getMessagesAround(Long chatId, Long around, int pageSize) {
+        List<MessageDO> older = new ArrayList<>();
+        List<MessageDO> newer = new ArrayList<>();
+        MessageDO target = null;
+        if (messageArchiveService.isArchived(chatId, around)) {
+            older = getMessagesBefore(chatId, around, pageSize + 1);
+            Collections.reverse(older);
+            List<MessageDO> current = getMessagesAfter(chatId, around - 1, pageSize + 2);
+            if (!current.isEmpty() && current.get(0).getId().equals(around)) {
+                target = current.remove(0);
+            }
+            newer = current.subList(0, Math.min(pageSize + 1, current.size()));
+        } else {
+            for (MessageDO messageDO : messageMapper.getMessagesAround(chatId, around, pageSize + 1)) {
+                if (messageDO.getId() < around) {
+                    older.add(messageDO);
+                } else if (messageDO.getId() > around) {
+                    newer.add(messageDO);
+                } else {
+                    target = messageDO;
+                }
+            }
+            if (older.size() <= pageSize) {
+                Long cursor = older.isEmpty() ? around : older.get(0).getId();
+                List<MessageDO> archived = messageArchiveService.readBefore(chatId, cursor, pageSize + 1 - older.size());
+                for (MessageDO messageDO : archived) {
+                    older.add(0, messageDO);
+                }
+            }
+        }
+
+        boolean hasPrev = older.size() > pageSize;
+        boolean hasNext = newer.size() > pageSize;
+        List<MessageDO> messageDos = new ArrayList<>(pageSize * 2 + 1);
+        messageDos.addAll(older.subList(older.size() - Math.min(pageSize, older.size()), older.size()));
+        if (target != null) {
+            messageDos.add(target);
+        }
+        messageDos.addAll(newer.subList(0, Math.min(pageSize, newer.size())));
+        return new Slices<>(messageConverter.toMessageInfoDTOs(messageDos), hasPrev, hasNext);
+    }
+
+    /**
+     * 查询指定消息之后的消息，游标早于归档边界时先读归档，再接着读消息表
+     *
+     * @param chatId 聊天ID
+     * @param after  游标(不包含)
+     * @param limit  数量
+     * @return 按ID正序的消息列表
+     */
+    private List<MessageDO> getMessagesAfter(Long chatId, Long after, int limit) {
+        List<MessageDO> messageDos = new ArrayList<>(messageArchiveService.readAfter(chatId, after, limit));
+        if (messageDos.size() < limit) {
+            Long cursor = messageDos.isEmpty() ? after : messageDos.get(messageDos.size() - 1).getId();
+            int remain = limit - messageDos.size();
+            List<MessageDO> recent = recentMessageCache.getAfter(chatId, cursor, remain);
+            messageDos.addAll(recent != null ? recent : messageMapper.getMessagesAfter(chatId, cursor, remain));
+        }
+        return messageDos;
+    }
+
+    /**
+     * 查询指定消息之前的消息，消息表不足时从归档中继续读取
+     *
+     * @param chatId 聊天ID
+     * @param before 游标(不包含)，为null时查询最新的消息
+     * @param limit  数量
+     * @return 按ID倒序的消息列表
+     */
+    private List<MessageDO> getMessagesBefore(Long chatId, Long before, int limit) {
+        List<MessageDO> messageDos = before == null
+                ? getLatestMessages(chatId, limit)
+                : messageMapper.getMessagesBefore(chatId, before, limit);
+        if (messageDos.size() < limit) {
+            Long cursor = messageDos.isEmpty() ? before : messageDos.get(messageDos.size() - 1).getId();
+            messageDos.addAll(messageArchiveService.readBefore(chatId, cursor, limit - messageDos.size()));
+        }
+        return messageDos;
+    }
+
+    /**
+     * 查询最新的消息，优先读取最近消息缓存，未命中时按缓存容量查库并装载缓存
+     *
+     * @param chatId 聊天ID
+     * @param limit  数量
+     * @return 按ID倒序的消息列表
+     */
+    private List<MessageDO> getLatestMessages(Long chatId, int limit) {
+        List<MessageDO> messageDos = recentMessageCache.getLatest(chatId, limit);
+        if (messageDos != null) {
+            return messageDos;
+        }
+        int capacity = recentMessageCache.capacity();
+        if (limit > capacity) {
+            return messageMapper.getMessagesBefore(chatId, null, limit);
+        }
+        long stamp = recentMessageCache.stamp(chatId);
+        List<MessageDO> recent = messageMapper.getMessagesBefore(chatId, null, capacity);
+        recentMessageCache.load(chatId, recent, recent.size() < capacity, stamp);
+        return new ArrayList<>(recent.subList(0, Math.min(limit, recent.size())));
+    }
+
+    @Override
+    public Slices<MessageInfoDTO> searchMessages(MessageSearchParam param) {
+        int size = param.getPageSize() != null && param.getPageSize() > 0 ? Math.min(param.getPageSize(), 50) : 20;
+        Set<Long> chatIds;
+        if (StringUtils.hasText(param.getChatId())) {
+            Long chatId = secureIdConverterHelper.decodeChatId(param.getChatId());
+            if (chatMemberMapper.exists(chatId, param.getOperatorUserId()) == 0) {
+                throw new BusinessException(ErrorCode.INVALID_PARAM, "不在该聊天中");
+            }
+            chatIds = Set.of(chatId);
+        } else {
+            chatIds = new HashSet<>(chatMemberMapper.selectChatIdsByUserId(param.getOperatorUserId()));
+        }
+        List<String> keywords = Arrays.stream(MessageTokenizer.normalize(param.getKeyword().trim()).split("\\s+"))
+                .filter(StringUtils::hasText)
+                .toList();
+        Long before = StringUtils.hasText(param.getBefore()) ? secureIdConverterHelper.decodeMessageId(param.getBefore()) : null;
+
+        // 索引结果为候选集，按原文复核，不足一页时继续向前取候选；
+        // 高频二元组误命中多时复核可能迟迟凑不满一页，扫描轮数有上限，达到上限时返回已扫描到的位置作为游标
+        List<MessageDO> matched = new ArrayList<>();
+        boolean exhausted = false;
+        int rounds = 0;
+        while (matched.size() <= size && rounds < SEARCH_MAX_ROUNDS) {
+            PostingList candidates = messageSearchIndex.search(param.getKeyword(), chatIds, before, size + 1);
+            rounds++;
+            if (candidates.size() == 0) {
+                exhausted = true;
+                break;
+            }
+            List<Long> candidateIds = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                candidateIds.add(candidates.messageId(i));
+            }
+            // 已归档或已删除的消息不在消息表中，直接跳过
+            Map<Long, MessageDO> messageMap = messageMapper.selectByIds(candidateIds).stream()
+                    .collect(Collectors.toMap(MessageDO::getId, Function.identity()));
+            for (Long id : candidateIds) {
+                MessageDO messageDO = messageMap.get(id);
+                if (messageDO != null && matches(messageDO.getContent(), keywords)) {
+                    matched.add(messageDO);
+                }
+            }
+            before = candidateIds.get(candidateIds.size() - 1);
+            if (candidates.size() <= size) {
+                // 候选已取尽
+                exhausted = true;
+                break;
+            }
+        }
+
+        if (matched.size() > size) {
+            List<MessageInfoDTO> messages = messageConverter.toMessageInfoDTOs(matched.subList(0, size));
+            return new Slices<>(messages, true);
+        }
+        Slices<MessageInfoDTO> slices = new Slices<>(messageConverter.toMessageInfoDTOs(matched), !exhausted);
+        if (!exhausted) {
+            // 达到扫描上限，从已扫描到的位置继续
+            slices.setNextCursor(secureIdConverterHelper.encodeMessageId(before));
+        }
+        return slices;
+    }
+
+    private boolean matches(String content, List<String> keywords) {
+        if (content == null) {
+            return false;
+        }
+        String normalized = MessageTokenizer.normalize(content);
+        return keywords.stream().allMatch(normalized::contains);
+    }
+
+    @Override
+    public void prepareExport(MessageExportParam param) {
+        Long chatId = secureIdConverterHelper.decodeChatId(param.getChatId());
+        if (chatMemberMapper.exists(chatId, param.getOperatorUserId()) == 0) {
+            throw new BusinessException(ErrorCode.INVALID_PARAM, "不在该聊天中");
+        }
+        // 名额在流式响应体内占用，这里只做快速拒绝
+        if (messageExporter.isBusy()) {
+            throw new BusinessException(ErrorCode.BUSY, "导出任务繁忙，请稍后再试");
+        }
+    }
+
+    @Override
+    public void exportMessages(MessageExportParam param, OutputStream out) throws IOException {
+        messageExporter.export(secureIdConverterHelper.decodeChatId(param.getChatId()), param.getFormat(), param.isGzip(), out);
+    }
+
     @Override
     public Slices<SimpleUserDTO> getGroupChatMembers(String chatId, String lastUserId, Integer pageSize) {
         int size = pageSize != null && pageSize > 0 ? Math.min(pageSize, 50) : 20;
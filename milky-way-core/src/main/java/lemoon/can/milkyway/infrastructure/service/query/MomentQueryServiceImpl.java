@@ -1,16 +1,27 @@
 package lemoon.can.milkyway.infrastructure.service.query;
 
+import lemoon.can.milkyway.common.exception.BusinessException;
+import lemoon.can.milkyway.common.exception.ErrorCode;
+import lemoon.can.milkyway.facade.dto.CommentDTO;
 import lemoon.can.milkyway.facade.dto.MomentDTO;
 import lemoon.can.milkyway.facade.dto.Slices;
+import lemoon.can.milkyway.facade.param.MomentFields;
 import lemoon.can.milkyway.facade.service.query.MomentQueryService;
+import lemoon.can.milkyway.infrastructure.converter.CommentConverter;
 import lemoon.can.milkyway.infrastructure.converter.MomentConverter;
 import lemoon.can.milkyway.infrastructure.converter.helper.SecureIdConverterHelper;
+import lemoon.can.milkyway.infrastructure.inner.comment.CommentPages;
+import lemoon.can.milkyway.infrastructure.inner.moment.MomentHeaderCache;
+import lemoon.can.milkyway.infrastructure.inner.timeline.MomentTimeline;
+import lemoon.can.milkyway.infrastructure.repository.dos.CommentDO;
 import lemoon.can.milkyway.infrastructure.repository.dos.MomentDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.CommentMapper;
 import lemoon.can.milkyway.infrastructure.repository.mapper.MomentMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,42 +35,97 @@ public class MomentQueryServiceImpl implements MomentQueryService {
     private final MomentMapper momentMapper;
     private final SecureIdConverterHelper secureIdConverterHelper;
     private final MomentConverter momentConverter;
+    private final MomentTimeline momentTimeline;
+    private final CommentPages commentPages;
+    private final MomentHeaderCache momentHeaderCache;
+    private final CommentMapper commentMapper;
+    private final CommentConverter commentConverter;
 
     @Override
-    public Slices<MomentDTO> listFriendMoments(String userId, String lastId, int pageSize) {
+    public Slices<MomentDTO> listFriendMoments(String userId, String lastId, int pageSize, MomentFields fields) {
         Long realLastId = null;
         if (StringUtils.hasLength(lastId)) {
             realLastId = secureIdConverterHelper.decodeMomentId(lastId);
         }
-        List<MomentDO> momentDos = momentMapper.listFriendMoments(userId, realLastId, pageSize + 1);
-        List<MomentDTO> moments = momentConverter.toMomentDTOs(momentDos);
-
-        boolean hasNext = moments.size() > pageSize;
-        if (hasNext) {
-            moments.remove(moments.size() - 1);
+        List<MomentDO> momentDos = new ArrayList<>();
+        Long cursor = realLastId;
+        boolean hasNext;
+        while (true) {
+            int need = pageSize - momentDos.size();
+            List<Long> momentIds = momentTimeline.read(userId, cursor, need + 1);
+            hasNext = momentIds.size() > need;
+            if (hasNext) {
+                momentIds = momentIds.subList(0, need);
+            }
+            if (!momentIds.isEmpty()) {
+                momentDos.addAll(momentMapper.selectMomentsByIds(momentIds));
+            }
+            if (!hasNext || momentDos.size() >= pageSize) {
+                break;
+            }
+            // 时间线中有已删除(待清理)的动态，从下一页补齐，避免返回空页但 hasNext 为 true
+            cursor = momentIds.get(momentIds.size() - 1);
         }
-        return new Slices<>(moments, hasNext);
+        if (momentDos.isEmpty()) {
+            return new Slices<>(new ArrayList<>(), false);
+        }
+        return new Slices<>(momentConverter.toMomentDTOs(momentDos, fields), hasNext);
     }
 
     @Override
-    public Slices<MomentDTO> listPersonalMoments(String userId, String lastId, int pageSize) {
+    public Slices<MomentDTO> listPersonalMoments(String userId, String lastId, int pageSize, MomentFields fields) {
         Long realLastId = null;
         if (StringUtils.hasLength(lastId)) {
             realLastId = secureIdConverterHelper.decodeMomentId(lastId);
         }
         List<MomentDO> momentDos = momentMapper.listPersonalMoments(userId, realLastId, pageSize + 1);
-        List<MomentDTO> moments = momentConverter.toMomentDTOs(momentDos);
 
-        boolean hasNext = moments.size() > pageSize;
+        // 先去掉探测行再转换，避免为它加载点赞和评论
+        boolean hasNext = momentDos.size() > pageSize;
         if (hasNext) {
-            moments.remove(moments.size() - 1);
+            momentDos = momentDos.subList(0, pageSize);
+        }
+        return new Slices<>(momentConverter.toMomentDTOs(momentDos, fields), hasNext);
+    }
+
+    @Override
+    public MomentDTO getMoment(String momentId, MomentFields fields) {
+        Long realMomentId = secureIdConverterHelper.decodeMomentId(momentId);
+        // 头部走缓存，计数按主键实时查询(同时确认动态未被其他实例删除)
+        MomentHeaderCache.MomentHeader header = momentHeaderCache.get(realMomentId);
+        MomentDO counts = header == null ? null : momentMapper.selectCountsById(realMomentId);
+        if (counts == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND, "内容不存在");
         }
-        return new Slices<>(moments, hasNext);
+        MomentDO momentDO = header.toMomentDO();
+        momentDO.setLikeCounts(counts.getLikeCounts());
+        momentDO.setCommentCounts(counts.getCommentCounts());
+        return momentConverter.toMomentDTO(momentDO, fields);
     }
 
     @Override
-    public MomentDTO getMoment(String momentId) {
-        MomentDO momentDO = momentMapper.selectMomentById(secureIdConverterHelper.decodeMomentId(momentId));
-        return momentConverter.toMomentDTO(momentDO);
+    public Slices<CommentDTO> listComments(String momentId, Long lastId, int pageSize) {
+        int size = pageSize > 0 ? Math.min(pageSize, 50) : 20;
+        Long realMomentId = secureIdConverterHelper.decodeMomentId(momentId);
+        if (lastId == null && size <= commentPages.pageSize()) {
+            // 第一页走缓存
+            CommentPages.CommentPage page = commentPages.firstPages(List.of(realMomentId)).get(realMomentId);
+            List<CommentDTO> comments = page.comments();
+            boolean hasNext = page.hasNext() || comments.size() > size;
+            return new Slices<>(new ArrayList<>(comments.subList(0, Math.min(size, comments.size()))), hasNext);
+        }
+        CommentPages.CommentPage page = commentPages.page(realMomentId, lastId, size);
+        return new Slices<>(page.comments(), page.hasNext());
+    }
+
+    @Override
+    public Slices<CommentDTO> listReplies(Long commentId, Long lastId, int pageSize) {
+        int size = pageSize > 0 ? Math.min(pageSize, 50) : 20;
+        List<CommentDO> replies = commentMapper.selectReplies(commentId, lastId, size + 1);
+        boolean hasNext = replies.size() > size;
+        if (hasNext) {
+            replies = replies.subList(0, size);
+        }
+        return new Slices<>(replies.stream().map(commentConverter::toDto).collect(Collectors.toList()), hasNext);
     }
 }
@@ -0,0 +1,11 @@
+-- 删除改为墓碑 + 后台级联清理，已上线的库执行一次即可，新库直接使用 table.sql
+-- InnoDB 在线变更，不阻塞读写
+ALTER TABLE moment ADD COLUMN deleted_time TIMESTAMP NULL COMMENT '删除时间(墓碑)，非空时已隐藏，等待后台清理',
+    ADD INDEX idx_moment_deleted_time (deleted_time),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+ALTER TABLE chat ADD COLUMN deleted_time TIMESTAMP NULL COMMENT '删除时间(墓碑)，非空时已隐藏，等待后台清理',
+    ADD INDEX idx_chat_deleted_time (deleted_time),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+ALTER TABLE message_read_cursor ADD INDEX idx_message_read_cursor_chat_id (chat_id), ALGORITHM = INPLACE, LOCK = NONE;
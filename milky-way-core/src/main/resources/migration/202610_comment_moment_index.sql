@@ -0,0 +1,3 @@
+-- 评论按动态批量加载所需索引，已上线的库执行一次即可，新库直接使用 table.sql
+-- InnoDB 在线加索引，不阻塞读写
+ALTER TABLE comment ADD INDEX idx_comment_moment_id (moment_id, id), ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,25 @@
+-- 评论分页所需字段与索引，已上线的库执行一次即可，新库直接使用 table.sql
+
+-- 1.加字段与索引(InnoDB 在线变更，不阻塞读写)
+ALTER TABLE comment ADD COLUMN root_comment_id BIGINT COMMENT '所属顶级评论ID' AFTER parent_comment_id,
+    ALGORITHM = INPLACE, LOCK = NONE;
+ALTER TABLE comment ADD INDEX idx_comment_moment_root (moment_id, root_comment_id, id),
+    ADD INDEX idx_comment_root_id (root_comment_id, id),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 2.回填：沿父评论链找到顶级评论
+UPDATE comment c
+    JOIN (WITH RECURSIVE thread AS (SELECT id, id AS root_id
+                                    FROM comment
+                                    WHERE parent_comment_id IS NULL
+                                    UNION ALL
+                                    SELECT r.id, t.root_id
+                                    FROM comment r
+                                             JOIN thread t ON r.parent_comment_id = t.id)
+          SELECT id, root_id
+          FROM thread) t ON c.id = t.id
+SET c.root_comment_id = t.root_id
+WHERE c.parent_comment_id IS NOT NULL;
+
+-- 3.顶级评论分页已改用 idx_comment_moment_root
+ALTER TABLE comment DROP INDEX idx_comment_moment_id, ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,105 @@
+-- 消息表在线迁移：普通表 -> 按月分区 + 覆盖索引
+-- 适用于已上线的库，新库直接使用 table.sql
+--
+-- 思路：
+--   1. 新建分区表 message_partitioned
+--   2. 存储过程按ID分块复制存量数据，每块之间休眠，不长时间持有锁；可中断，重复执行时从新表的最大ID继续
+--   3. 切换：抬高新表自增值 -> RENAME 原子交换 -> 补齐交换瞬间写入旧表的消息
+-- 按ID追平只能同步插入，不能同步删除：冷消息归档(archive.message)与已删除聊天的级联清理(purge)都会删除消息，
+-- 迁移前需关闭这两项(archive.message.enabled=false、purge.enabled=false)，切换完成后再开启
+--
+-- 1.新建分区表(结构与 table.sql 一致，首个分区需覆盖现存最早的消息，月分区需覆盖到当前月之后，
+--   保证切换后 p_max 为空；执行时间晚于最后一个分区时先补充分区定义)
+CREATE TABLE IF NOT EXISTS message_partitioned
+(
+    id        BIGINT AUTO_INCREMENT             NOT NULL COMMENT '消息ID',
+    chat_id   BIGINT COMMENT '聊天室ID',
+    sender_id VARCHAR(24)                       NOT NULL COMMENT '发送者ID',
+    content   VARCHAR(255) COMMENT '消息内容',
+    type      VARCHAR(255) COMMENT '消息类型',
+    sent_time TIMESTAMP                         NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '发送时间',
+    read_time TIMESTAMP NULL COMMENT '阅读时间',
+    PRIMARY KEY (id, sent_time),
+    KEY idx_message_chat_id (chat_id, id, type, sender_id, sent_time),
+    KEY idx_message_type_id (type, id)
+)
+    PARTITION BY RANGE (UNIX_TIMESTAMP(sent_time)) (
+        PARTITION p202510 VALUES LESS THAN (UNIX_TIMESTAMP('2025-11-01 00:00:00')),
+        PARTITION p202511 VALUES LESS THAN (UNIX_TIMESTAMP('2025-12-01 00:00:00')),
+        PARTITION p202512 VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+        PARTITION p202601 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+        PARTITION p202602 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+        PARTITION p202603 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+        PARTITION p202604 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+        PARTITION p202605 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+        PARTITION p202606 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+        PARTITION p202607 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+        PARTITION p202608 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+        PARTITION p202609 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+        PARTITION p202610 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+        PARTITION p202611 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+        PARTITION p202612 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+        PARTITION p202701 VALUES LESS THAN (UNIX_TIMESTAMP('2027-02-01 00:00:00')),
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+        );
+
+-- 2.分块复制
+DROP PROCEDURE IF EXISTS migrate_message_partitioned;
+DELIMITER $$
+CREATE PROCEDURE migrate_message_partitioned(IN chunk_size INT, IN pause_seconds DECIMAL(6, 3))
+BEGIN
+    DECLARE cursor_id BIGINT;
+    DECLARE max_id BIGINT;
+
+    SELECT COALESCE(MAX(id), 0) INTO cursor_id FROM message_partitioned;
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM message;
+
+    WHILE cursor_id < max_id
+        DO
+            INSERT IGNORE INTO message_partitioned (id, chat_id, sender_id, content, type, sent_time, read_time)
+            SELECT id, chat_id, sender_id, content, type, COALESCE(sent_time, CURRENT_TIMESTAMP), read_time
+            FROM message
+            WHERE id > cursor_id
+              AND id <= cursor_id + chunk_size;
+
+            SET cursor_id = cursor_id + chunk_size;
+            IF pause_seconds > 0 THEN
+                DO SLEEP(pause_seconds);
+            END IF;
+
+            -- 复制期间持续有新消息写入，追到最新
+            IF cursor_id >= max_id THEN
+                SELECT COALESCE(MAX(id), 0) INTO max_id FROM message;
+            END IF;
+        END WHILE;
+END $$
+DELIMITER ;
+
+-- 每块1万行、间隔50ms，可在业务低峰期反复执行
+CALL migrate_message_partitioned(10000, 0.05);
+
+-- 3.切换
+-- 3.1 再追一次，缩小切换窗口
+CALL migrate_message_partitioned(10000, 0);
+
+-- 3.2 新表自增值跳过一段，确保切换瞬间写入旧表的消息ID不会与新表冲突
+SET @next_id = (SELECT COALESCE(MAX(id), 0) + 100000 FROM message);
+SET @ddl = CONCAT('ALTER TABLE message_partitioned AUTO_INCREMENT = ', @next_id);
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 3.3 原子交换
+RENAME TABLE message TO message_unpartitioned, message_partitioned TO message;
+
+-- 3.4 补齐交换前最后一刻写入旧表的消息
+INSERT IGNORE INTO message (id, chat_id, sender_id, content, type, sent_time, read_time)
+SELECT id, chat_id, sender_id, content, type, COALESCE(sent_time, CURRENT_TIMESTAMP), read_time
+FROM message_unpartitioned
+WHERE id > (SELECT COALESCE(MAX(id), 0) FROM message WHERE id < @next_id);
+
+-- 4.校验无误后清理
+-- SELECT COUNT(*) FROM message_unpartitioned;
+-- SELECT COUNT(*) FROM message WHERE id < @next_id;
+-- DROP TABLE message_unpartitioned;
+-- DROP PROCEDURE migrate_message_partitioned;
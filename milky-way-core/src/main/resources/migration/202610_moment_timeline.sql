@@ -0,0 +1,30 @@
+-- 好友动态时间线，已上线的库执行一次即可，新库直接使用 table.sql
+-- 回填后超出上限(moment.timeline.cap)的部分会在用户下次收到动态时被裁剪
+
+-- 1.建表与索引
+CREATE TABLE IF NOT EXISTS moment_timeline
+(
+    user_id         VARCHAR(24) NOT NULL COMMENT '读者用户ID',
+    moment_id       BIGINT      NOT NULL COMMENT '动态ID',
+    publish_user_id VARCHAR(24) NOT NULL COMMENT '发布用户ID',
+    PRIMARY KEY (user_id, moment_id),
+    KEY idx_moment_timeline_moment_id (moment_id)
+);
+
+CREATE TABLE IF NOT EXISTS moment_pull_publisher
+(
+    user_id     VARCHAR(24) PRIMARY KEY COMMENT '用户ID',
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
+);
+
+ALTER TABLE moment ADD INDEX idx_moment_publish_user_id (publish_user_id, id), ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 2.回填：自己的动态 + 好友的动态(与原拉取查询的可见范围一致)
+INSERT IGNORE INTO moment_timeline(user_id, moment_id, publish_user_id)
+SELECT m.publish_user_id, m.id, m.publish_user_id
+FROM moment m;
+
+INSERT IGNORE INTO moment_timeline(user_id, moment_id, publish_user_id)
+SELECT f.user_id, m.id, m.publish_user_id
+FROM moment m
+         JOIN friend f ON f.friend_id = m.publish_user_id;
@@ -0,0 +1,9 @@
+-- 雪花算法WorkerID租约表，已上线的库执行一次即可，新库直接使用 table.sql
+-- 行由应用按需插入，无需初始化数据
+CREATE TABLE IF NOT EXISTS worker_lease
+(
+    worker_id   INT PRIMARY KEY COMMENT 'WorkerID',
+    owner       VARCHAR(128) NOT NULL COMMENT '持有实例标识',
+    expire_time TIMESTAMP    NOT NULL COMMENT '租约到期时间',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+);
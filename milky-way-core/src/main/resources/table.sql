@@ -72,6 +72,15 @@ CREATE TABLE file_meta_info
     update_time  TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
 );
 
+-- 雪花算法WorkerID租约(每个实例启动时领取一个，心跳续期，过期后可被其他实例领取)
+CREATE TABLE worker_lease
+(
+    worker_id   INT PRIMARY KEY COMMENT 'WorkerID',
+    owner       VARCHAR(128) NOT NULL COMMENT '持有实例标识',
+    expire_time TIMESTAMP    NOT NULL COMMENT '租约到期时间',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+);
+
 -- 聊天室表
 CREATE TABLE chat
 (
@@ -81,7 +90,10 @@ CREATE TABLE chat
     bulletin    TEXT COMMENT '聊天室公告',
     extra_info  JSON COMMENT '扩展信息',
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted_time TIMESTAMP NULL COMMENT '删除时间(墓碑)，非空时已隐藏，等待后台清理',
+    -- 后台清理扫描墓碑
+    KEY idx_chat_deleted_time (deleted_time)
 );
 
 -- 聊天室成员表
@@ -99,16 +111,42 @@ CREATE TABLE chat_member
 );
 
 -- 聊天消息
+-- 按发送时间按月RANGE分区(分区键必须包含在主键中，故主键为(id, sent_time))
+-- 新分区由 MessagePartitionJob 提前创建，存量表迁移见 migration/202610_message_partition.sql
 CREATE TABLE message
 (
-    id        BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL COMMENT '消息ID',
+    id        BIGINT AUTO_INCREMENT             NOT NULL COMMENT '消息ID',
     chat_id   BIGINT COMMENT '聊天室ID',
     sender_id VARCHAR(24)                       NOT NULL COMMENT '发送者ID',
     content   VARCHAR(255) COMMENT '消息内容',
     type      VARCHAR(255) COMMENT '消息类型',
-    sent_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '发送时间',
-    read_time TIMESTAMP COMMENT '阅读时间'
-);
+    sent_time TIMESTAMP                         NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '发送时间',
+    read_time TIMESTAMP NULL COMMENT '阅读时间',
+    PRIMARY KEY (id, sent_time),
+    -- 历史消息分页/最后一条消息/未读统计：chat_id = ? AND id < ? ORDER BY id DESC，覆盖 type、sender_id、sent_time
+    KEY idx_message_chat_id (chat_id, id, type, sender_id, sent_time),
+    -- 多媒体消息清理：type IN (...) AND id > ?
+    KEY idx_message_type_id (type, id)
+)
+    PARTITION BY RANGE (UNIX_TIMESTAMP(sent_time)) (
+        PARTITION p202510 VALUES LESS THAN (UNIX_TIMESTAMP('2025-11-01 00:00:00')),
+        PARTITION p202511 VALUES LESS THAN (UNIX_TIMESTAMP('2025-12-01 00:00:00')),
+        PARTITION p202512 VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+        PARTITION p202601 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+        PARTITION p202602 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+        PARTITION p202603 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+        PARTITION p202604 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+        PARTITION p202605 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+        PARTITION p202606 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+        PARTITION p202607 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+        PARTITION p202608 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+        PARTITION p202609 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+        PARTITION p202610 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+        PARTITION p202611 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+        PARTITION p202612 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+        PARTITION p202701 VALUES LESS THAN (UNIX_TIMESTAMP('2027-02-01 00:00:00')),
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+        );
 
 -- 消息已读游标(用户已读才插入记录)
 CREATE TABLE message_read_cursor
@@ -117,7 +155,9 @@ CREATE TABLE message_read_cursor
     chat_id              BIGINT      NOT NULL COMMENT '聊天室ID',
     last_read_message_id BIGINT      NOT NULL COMMENT '最新已读消息ID',
     read_time            TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '阅读时间',
-    PRIMARY KEY (user_id, chat_id)
+    PRIMARY KEY (user_id, chat_id),
+    -- 删除聊天后按聊天清理
+    KEY idx_message_read_cursor_chat_id (chat_id)
 );
 
 -- 帖子
@@ -132,7 +172,29 @@ CREATE TABLE moment
     like_counts     INT       DEFAULT 0 COMMENT '点赞数',
     comment_counts  INT       DEFAULT 0 COMMENT '评论数',
     create_time     TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    update_time     TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+    update_time     TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted_time    TIMESTAMP NULL COMMENT '删除时间(墓碑)，非空时已隐藏，等待后台清理',
+    -- 个人动态、读扩散发布者的动态：publish_user_id IN (...) AND id < ? ORDER BY id DESC
+    KEY idx_moment_publish_user_id (publish_user_id, id),
+    -- 后台清理扫描墓碑
+    KEY idx_moment_deleted_time (deleted_time)
+);
+
+-- 动态时间线(写扩散收件箱)，每个读者只保留最新的若干条
+CREATE TABLE moment_timeline
+(
+    user_id         VARCHAR(24) NOT NULL COMMENT '读者用户ID',
+    moment_id       BIGINT      NOT NULL COMMENT '动态ID',
+    publish_user_id VARCHAR(24) NOT NULL COMMENT '发布用户ID',
+    PRIMARY KEY (user_id, moment_id),
+    KEY idx_moment_timeline_moment_id (moment_id)
+);
+
+-- 读扩散发布者(好友数超过阈值，发布时不写好友时间线，读者读取时合并)
+CREATE TABLE moment_pull_publisher
+(
+    user_id     VARCHAR(24) PRIMARY KEY COMMENT '用户ID',
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
 );
 
 -- 评论
@@ -142,8 +204,13 @@ CREATE TABLE comment
     moment_id         BIGINT                            NOT NULL COMMENT '动态ID',
     comment_user_id   VARCHAR(24)                       NOT NULL COMMENT '评论用户ID',
     parent_comment_id BIGINT COMMENT '父评论ID',
+    root_comment_id   BIGINT COMMENT '所属顶级评论ID',
     content           VARCHAR(2000)                     NOT NULL COMMENT '评论内容',
-    create_time       TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
+    create_time       TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    -- 顶级评论分页：moment_id = ? AND root_comment_id IS NULL ORDER BY id
+    KEY idx_comment_moment_root (moment_id, root_comment_id, id),
+    -- 回复分页与回复数：root_comment_id = ? ORDER BY id
+    KEY idx_comment_root_id (root_comment_id, id)
 );
 
 -- 点赞表
@@ -3,9 +3,16 @@ package lemoon.can.milkyway.common.utils;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class FlexibleSnowflakeTest {
 
@@ -158,11 +165,83 @@ public class FlexibleSnowflakeTest {
         // 显示连续ID的递增差值
         long[] diffs = new long[10];
         for (int i = 1; i < 11; i++) {
-            diffs[i - 1] = Long.parseLong(rapidIds[i]) - Long.parseLong(rapidIds[i - 1]);
+            diffs[i - 1] = Long.parseLong(rapidIds[i].substring(1)) - Long.parseLong(rapidIds[i - 1].substring(1));
         }
         System.out.println("前10个连续差值: " + Arrays.toString(diffs));
         boolean allPositive = Arrays.stream(diffs).allMatch(d -> d > 0);
         System.out.println("所有差值均 > 0: " + allPositive);
         assertTrue(allPositive, "All differences between consecutive IDs should be positive");
     }
+
+    @Test
+    public void testConcurrentUniqueness() throws Exception {
+        System.out.println("=== 多线程唯一性与单调性压力测试 ===");
+        FlexibleSnowflake snowflake = new FlexibleSnowflake("A", FlexibleSnowflake.MachineConfig.SMALL, 2);
+        int threads = 8;
+        int perThread = 2000;
+        Set<String> allIds = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String[] ids = new String[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = snowflake.nextId();
+                        allIds.add(ids[i]);
+                    }
+                    // 单个线程内看到的ID必须严格递增
+                    return snowflake.verifyIncreasingSequence(ids);
+                }));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(), "IDs should be strictly increasing within a thread");
+            }
+            double tps = threads * perThread / ((System.nanoTime() - startTime) / 1e9);
+            System.out.println("✓ " + threads + "线程性能: " + tps + " TPS");
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.println("✓ 唯一性验证: " + allIds.size() + "/" + threads * perThread);
+        assertEquals(threads * perThread, allIds.size(), "All IDs should be unique across threads");
+    }
+
+    @Test
+    public void testConcurrentBlockReservation() throws Exception {
+        System.out.println("=== 多线程批量预留测试 ===");
+        FlexibleSnowflake snowflake = new FlexibleSnowflake("A", FlexibleSnowflake.MachineConfig.MEDIUM, 3);
+        int threads = 4;
+        int rounds = 20;
+        int blockSize = 500;
+        Set<String> allIds = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    boolean increasing = true;
+                    for (int r = 0; r < rounds; r++) {
+                        // 批量与单个混合调用
+                        String[] block = snowflake.nextIds(blockSize);
+                        increasing &= snowflake.verifyIncreasingSequence(block);
+                        allIds.addAll(Arrays.asList(block));
+                        allIds.add(snowflake.nextId());
+                    }
+                    return increasing;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(), "Reserved blocks should be strictly increasing");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        int expected = threads * rounds * (blockSize + 1);
+        System.out.println("✓ 唯一性验证: " + allIds.size() + "/" + expected);
+        assertEquals(expected, allIds.size(), "All IDs should be unique across blocks");
+    }
 }
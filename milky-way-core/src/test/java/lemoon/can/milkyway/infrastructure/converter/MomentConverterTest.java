@@ -0,0 +1,147 @@
+package lemoon.can.milkyway.infrastructure.converter;
+
+import lemoon.can.milkyway.common.exception.BusinessException;
+import lemoon.can.milkyway.facade.dto.CommentDTO;
+import lemoon.can.milkyway.facade.dto.MomentDTO;
+import lemoon.can.milkyway.facade.dto.SimpleUserDTO;
+import lemoon.can.milkyway.facade.param.MomentFields;
+import lemoon.can.milkyway.infrastructure.converter.helper.DateTimeConverterHelper;
+import lemoon.can.milkyway.infrastructure.converter.helper.SecureIdConverterHelper;
+import lemoon.can.milkyway.infrastructure.inner.comment.CommentPages;
+import lemoon.can.milkyway.infrastructure.repository.dos.LikeUserDO;
+import lemoon.can.milkyway.infrastructure.repository.dos.MomentDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.LikeMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 动态列表转换的查询次数回归测试：点赞一次、评论第一页批量取一次，与页大小无关
+ */
+@ExtendWith(MockitoExtension.class)
+public class MomentConverterTest {
+    @Mock
+    private LikeMapper likeMapper;
+    @Mock
+    private CommentPages commentPages;
+    @Mock
+    private SecureIdConverterHelper secureIdConverterHelper;
+    @Mock
+    private DateTimeConverterHelper dateTimeConverterHelper;
+    @InjectMocks
+    private MomentConverterImpl momentConverter;
+
+    @Test
+    public void testPageIssuesOneQueryPerAssociation() {
+        for (int pageSize : new int[]{1, 20, 100}) {
+            reset(likeMapper, commentPages);
+            when(likeMapper.selectLikeUsersByMomentIds(any())).thenReturn(List.of());
+            when(commentPages.firstPages(any())).thenAnswer(invocation -> emptyPages(invocation.getArgument(0)));
+
+            List<MomentDTO> dtos = momentConverter.toMomentDTOs(moments(pageSize));
+
+            assertEquals(pageSize, dtos.size());
+            verify(likeMapper, times(1)).selectLikeUsersByMomentIds(any());
+            verify(commentPages, times(1)).firstPages(any());
+            verifyNoMoreInteractions(likeMapper, commentPages);
+        }
+    }
+
+    @Test
+    public void testEmptyPageIssuesNoQuery() {
+        assertTrue(momentConverter.toMomentDTOs(List.of()).isEmpty());
+        verifyNoInteractions(likeMapper, commentPages);
+    }
+
+    @Test
+    public void testLikesAndCommentsAreGroupedByMoment() {
+        when(likeMapper.selectLikeUsersByMomentIds(any())).thenReturn(List.of(
+                like(1L, "U1"), like(1L, "U2"), like(3L, "U3")));
+        when(commentPages.firstPages(any())).thenAnswer(invocation -> {
+            Map<Long, CommentPages.CommentPage> pages = emptyPages(invocation.getArgument(0));
+            pages.put(2L, new CommentPages.CommentPage(List.of(new CommentDTO()), true));
+            return pages;
+        });
+
+        List<MomentDTO> dtos = momentConverter.toMomentDTOs(moments(3));
+
+        assertEquals(List.of("U1", "U2"), dtos.get(0).getLikeUsers().stream().map(SimpleUserDTO::getId).toList());
+        assertTrue(dtos.get(1).getLikeUsers().isEmpty(), "Moment without likes should get an empty list");
+        assertEquals(List.of("U3"), dtos.get(2).getLikeUsers().stream().map(SimpleUserDTO::getId).toList());
+        assertEquals(0, dtos.get(0).getComments().size());
+        assertEquals(1, dtos.get(1).getComments().size());
+        assertFalse(dtos.get(0).getHasMoreComments());
+        assertTrue(dtos.get(1).getHasMoreComments());
+        assertEquals("A1", dtos.get(0).getUser().getId());
+    }
+
+    @Test
+    public void testUnselectedCollectionsAreNotQueried() {
+        List<MomentDTO> dtos = momentConverter.toMomentDTOs(moments(3), MomentFields.parse("id,text,likeCounts"));
+
+        verifyNoInteractions(likeMapper, commentPages);
+        assertNull(dtos.get(0).getLikeUsers());
+        assertNull(dtos.get(0).getComments());
+        assertNull(dtos.get(0).getUser());
+        assertNull(dtos.get(0).getCreateTime());
+    }
+
+    @Test
+    public void testCommentLimitTruncatesWithoutTouchingCachedPage() {
+        List<CommentDTO> cached = List.of(new CommentDTO(), new CommentDTO(), new CommentDTO());
+        when(commentPages.firstPages(any())).thenAnswer(invocation -> {
+            Map<Long, CommentPages.CommentPage> pages = emptyPages(invocation.getArgument(0));
+            pages.put(1L, new CommentPages.CommentPage(cached, false));
+            return pages;
+        });
+
+        List<MomentDTO> dtos = momentConverter.toMomentDTOs(moments(2), MomentFields.parse("comments:limit=2"));
+
+        verifyNoInteractions(likeMapper);
+        assertEquals(2, dtos.get(0).getComments().size());
+        assertTrue(dtos.get(0).getHasMoreComments());
+        assertEquals(3, cached.size());
+        assertFalse(dtos.get(1).getHasMoreComments());
+    }
+
+    @Test
+    public void testUnknownFieldIsRejected() {
+        assertThrows(BusinessException.class, () -> MomentFields.parse("id,password"));
+        assertThrows(BusinessException.class, () -> MomentFields.parse("comments:limit=-1"));
+        assertThrows(BusinessException.class, () -> MomentFields.parse("text:limit=1"));
+    }
+
+    private static List<MomentDO> moments(int count) {
+        List<MomentDO> moments = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            MomentDO moment = new MomentDO();
+            moment.setId(id);
+            moment.setUserId("A" + id);
+            moments.add(moment);
+        }
+        return moments;
+    }
+
+    private static Map<Long, CommentPages.CommentPage> emptyPages(Collection<Long> momentIds) {
+        Map<Long, CommentPages.CommentPage> pages = new HashMap<>();
+        for (Long momentId : momentIds) {
+            pages.put(momentId, new CommentPages.CommentPage(List.of(), false));
+        }
+        return pages;
+    }
+
+    private static LikeUserDO like(Long momentId, String userId) {
+        LikeUserDO like = new LikeUserDO();
+        like.setMomentId(momentId);
+        like.setUserId(userId);
+        return like;
+    }
+}
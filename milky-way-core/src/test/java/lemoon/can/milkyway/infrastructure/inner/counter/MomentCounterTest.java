@@ -0,0 +1,127 @@
+package lemoon.can.milkyway.infrastructure.inner.counter;
+
+import lemoon.can.milkyway.infrastructure.repository.dos.MomentCountDO;
+import lemoon.can.milkyway.infrastructure.repository.mapper.MomentMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 计数写回：按批合并为 CASE 更新，增量在两次写回之间不丢失、不重复
+ */
+@ExtendWith(MockitoExtension.class)
+public class MomentCounterTest {
+    @Mock
+    private MomentMapper momentMapper;
+    private MomentCounter momentCounter;
+    /**
+     * 每次 addCounts 调用收到的批次
+     */
+    private final List<List<MomentCountDO>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void setUp() {
+        momentCounter = new MomentCounter(momentMapper);
+        lenient().when(momentMapper.addCounts(any())).thenAnswer(invocation -> {
+            List<MomentCountDO> batch = invocation.getArgument(0);
+            batches.add(new ArrayList<>(batch));
+            return batch.size();
+        });
+    }
+
+    @Test
+    public void testFlushMergesDeltasPerMomentIntoBatches() {
+        for (long id = 1; id <= 450; id++) {
+            momentCounter.addLike(id, 1);
+            momentCounter.addLike(id, 1);
+            momentCounter.addComment(id, -1);
+        }
+
+        momentCounter.flush();
+
+        assertEquals(List.of(200, 200, 50), batches.stream().map(List::size).toList());
+        Map<Long, MomentCountDO> written = written();
+        assertEquals(450, written.size());
+        assertEquals(2, written.get(7L).getLikeDelta());
+        assertEquals(-1, written.get(7L).getCommentDelta());
+    }
+
+    @Test
+    public void testDeltasAreHandedOffBetweenFlushes() {
+        momentCounter.addLike(1L, 3);
+        momentCounter.flush();
+        momentCounter.addLike(1L, 2);
+        momentCounter.flush();
+        // 空闲一个周期，条目被回收
+        momentCounter.flush();
+        momentCounter.addComment(1L, 1);
+        momentCounter.flush();
+
+        assertEquals(3, batches.size());
+        assertEquals(3, batches.get(0).get(0).getLikeDelta());
+        assertEquals(2, batches.get(1).get(0).getLikeDelta());
+        assertEquals(0, batches.get(2).get(0).getLikeDelta());
+        assertEquals(1, batches.get(2).get(0).getCommentDelta());
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedOnNextFlush() {
+        doThrow(new RuntimeException("deadlock"))
+                .doAnswer(invocation -> {
+                    batches.add(new ArrayList<>(invocation.<List<MomentCountDO>>getArgument(0)));
+                    return 1;
+                })
+                .when(momentMapper).addCounts(any());
+        momentCounter.addLike(1L, 1);
+        momentCounter.flush();
+        momentCounter.addLike(1L, 1);
+        momentCounter.flush();
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).get(0).getLikeDelta());
+    }
+
+    @Test
+    public void testConcurrentAddsWhileFlushingAreNeitherLostNorDuplicated() throws InterruptedException {
+        int threads = 8;
+        int perThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    // 少量动态，保证写入与回收频繁交错
+                    momentCounter.addLike((long) (i % 4), 1);
+                }
+                done.countDown();
+            });
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            momentCounter.flush();
+        }
+        executor.shutdown();
+        momentCounter.flush();
+        momentCounter.flush();
+
+        long total = batches.stream().flatMap(List::stream).mapToLong(MomentCountDO::getLikeDelta).sum();
+        assertEquals((long) threads * perThread, total);
+    }
+
+    private Map<Long, MomentCountDO> written() {
+        Map<Long, MomentCountDO> written = new HashMap<>();
+        batches.stream().flatMap(List::stream).forEach(count -> written.put(count.getMomentId(), count));
+        return written;
+    }
+}
@@ -0,0 +1,87 @@
+package lemoon.can.milkyway.infrastructure.inner.id;
+
+import lemoon.can.milkyway.common.utils.Snowflake;
+import lemoon.can.milkyway.infrastructure.repository.mapper.WorkerLeaseMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * WorkerID租约丢失：停止生成ID、健康检查DOWN，重新领取后恢复
+ */
+@ExtendWith(MockitoExtension.class)
+public class WorkerIdLeaseTest {
+    @Mock
+    private WorkerLeaseMapper workerLeaseMapper;
+    private WorkerIdLease lease;
+    private Snowflake snowflake;
+
+    @BeforeEach
+    public void setUp() {
+        when(workerLeaseMapper.acquire(eq(0), anyString(), anyInt())).thenReturn(1);
+        lease = new WorkerIdLease(workerLeaseMapper, 60, 10000);
+        lease.acquire();
+        snowflake = new Snowflake("TS", lease::workerId);
+    }
+
+    @Test
+    public void testRenewedLeaseKeepsGenerating() {
+        when(workerLeaseMapper.renew(eq(0), anyString(), anyInt())).thenReturn(1);
+
+        lease.heartbeat();
+
+        assertEquals(0, lease.workerId());
+        assertEquals(0, Snowflake.parse(snowflake.nextId()).workerId());
+        assertEquals(Status.UP, lease.health().getStatus());
+    }
+
+    @Test
+    public void testLostLeaseStopsGenerationUntilReacquired() {
+        when(workerLeaseMapper.renew(eq(0), anyString(), anyInt())).thenReturn(0);
+        // 原WorkerID已被其他实例持有，其余也都被占用
+        when(workerLeaseMapper.acquire(anyInt(), anyString(), anyInt())).thenReturn(0);
+
+        lease.heartbeat();
+
+        assertEquals(-1, lease.workerId());
+        assertThrows(IllegalStateException.class, snowflake::nextId);
+        assertEquals(Status.DOWN, lease.health().getStatus());
+
+        // 之后的心跳领取到空闲的WorkerID
+        when(workerLeaseMapper.acquire(eq(5), anyString(), anyInt())).thenReturn(1);
+        lease.heartbeat();
+
+        assertEquals(5, lease.workerId());
+        assertEquals(5, Snowflake.parse(snowflake.nextId()).workerId());
+        assertEquals(Status.UP, lease.health().getStatus());
+    }
+
+    @Test
+    public void testUnreachableDatabaseKeepsLeaseWithinLocalDeadline() {
+        when(workerLeaseMapper.renew(eq(0), anyString(), anyInt())).thenThrow(new RuntimeException("connection refused"));
+
+        lease.heartbeat();
+
+        assertEquals(0, lease.workerId());
+        verify(workerLeaseMapper, times(1)).acquire(anyInt(), anyString(), anyInt());
+    }
+
+    @Test
+    public void testLeasePastLocalDeadlineStopsGeneration() {
+        // 租约时长为0，领取后立即超过本地期限，与实例卡顿超过租约时长等价
+        WorkerIdLease expired = new WorkerIdLease(workerLeaseMapper, 0, 10000);
+        expired.acquire();
+
+        assertEquals(-1, expired.workerId());
+        assertThrows(IllegalStateException.class, () -> new Snowflake("TS", expired::workerId).nextId());
+    }
+}
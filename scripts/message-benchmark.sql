@@ -0,0 +1,141 @@
+-- 消息表存储结构基准测试
+-- 在独立的测试库执行：生成5000万条合成消息，分别写入旧结构(message_bench_plain)与新结构(message_bench_part)，
+-- 对比历史分页、最后一条消息、未读统计、多媒体清理扫描四类查询
+--
+-- 用法：mysql -u<user> -p <bench_db> < scripts/message-benchmark.sql
+-- 数据分布：1万个聊天，500个发送者，时间均匀分布在最近12个月，约10%为多媒体消息
+
+SET SESSION cte_max_recursion_depth = 1000000;
+
+DROP TABLE IF EXISTS message_bench_plain;
+CREATE TABLE message_bench_plain
+(
+    id        BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+    chat_id   BIGINT,
+    sender_id VARCHAR(24)                       NOT NULL,
+    content   VARCHAR(255),
+    type      VARCHAR(255),
+    sent_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    read_time TIMESTAMP NULL
+);
+
+DROP TABLE IF EXISTS message_bench_part;
+CREATE TABLE message_bench_part
+(
+    id        BIGINT AUTO_INCREMENT NOT NULL,
+    chat_id   BIGINT,
+    sender_id VARCHAR(24)           NOT NULL,
+    content   VARCHAR(255),
+    type      VARCHAR(255),
+    sent_time TIMESTAMP             NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    read_time TIMESTAMP NULL,
+    PRIMARY KEY (id, sent_time),
+    KEY idx_message_chat_id (chat_id, id, type, sender_id, sent_time),
+    KEY idx_message_type_id (type, id)
+);
+
+-- 按最近12个月建分区
+DROP PROCEDURE IF EXISTS bench_partition;
+DELIMITER $$
+CREATE PROCEDURE bench_partition()
+BEGIN
+    DECLARE i INT DEFAULT 12;
+    DECLARE month_start DATE;
+    SET @ddl = 'ALTER TABLE message_bench_part PARTITION BY RANGE (UNIX_TIMESTAMP(sent_time)) (';
+    WHILE i >= 0
+        DO
+            SET month_start = DATE_FORMAT(DATE_SUB(CURRENT_DATE, INTERVAL i MONTH), '%Y-%m-01');
+            SET @ddl = CONCAT(@ddl, 'PARTITION p', DATE_FORMAT(month_start, '%Y%m'),
+                              ' VALUES LESS THAN (UNIX_TIMESTAMP(''', DATE_ADD(month_start, INTERVAL 1 MONTH), ''')),');
+            SET i = i - 1;
+        END WHILE;
+    SET @ddl = CONCAT(@ddl, 'PARTITION p_max VALUES LESS THAN MAXVALUE)');
+    PREPARE stmt FROM @ddl;
+    EXECUTE stmt;
+    DEALLOCATE PREPARE stmt;
+END $$
+DELIMITER ;
+CALL bench_partition();
+
+-- 生成数据：每批100万行，共50批
+DROP PROCEDURE IF EXISTS bench_fill;
+DELIMITER $$
+CREATE PROCEDURE bench_fill(IN batches INT)
+BEGIN
+    DECLARE b INT DEFAULT 0;
+    WHILE b < batches
+        DO
+            INSERT INTO message_bench_plain (chat_id, sender_id, content, type, sent_time)
+            WITH RECURSIVE seq(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 1000000)
+            SELECT FLOOR(RAND() * 10000) + 1,
+                   CONCAT('U', FLOOR(RAND() * 500)),
+                   MD5(RAND()),
+                   ELT(1 + (n % 10 = 0) * (1 + FLOOR(RAND() * 3)), 'TEXT', 'IMAGE', 'VIDEO', 'FILE'),
+                   -- 整体随ID递增，模拟真实写入
+                   DATE_SUB(NOW(), INTERVAL (365 * 86400) - FLOOR(((b * 1000000 + n) / (batches * 1000000)) * 365 * 86400) SECOND)
+            FROM seq;
+            SET b = b + 1;
+        END WHILE;
+END $$
+DELIMITER ;
+CALL bench_fill(50);
+
+INSERT INTO message_bench_part SELECT * FROM message_bench_plain;
+ANALYZE TABLE message_bench_plain, message_bench_part;
+
+-- 参数
+SET @chat_id = 4242;
+SET @before = (SELECT MAX(id) FROM message_bench_plain) - 1000000;
+SET @user_id = 'U42';
+SET @last_read = @before - 5000000;
+
+-- Q1 历史分页
+EXPLAIN ANALYZE
+SELECT id, chat_id, type, content, sent_time, sender_id
+FROM message_bench_plain
+WHERE chat_id = @chat_id AND id < @before
+ORDER BY id DESC
+LIMIT 21;
+
+EXPLAIN ANALYZE
+SELECT id, chat_id, type, content, sent_time, sender_id
+FROM message_bench_part
+WHERE chat_id = @chat_id AND id < @before
+ORDER BY id DESC
+LIMIT 21;
+
+-- Q2 最后一条消息
+EXPLAIN ANALYZE
+SELECT MAX(id) FROM message_bench_plain WHERE chat_id = @chat_id;
+
+EXPLAIN ANALYZE
+SELECT MAX(id) FROM message_bench_part WHERE chat_id = @chat_id;
+
+-- Q3 未读统计(索引覆盖 sender_id)
+EXPLAIN ANALYZE
+SELECT COUNT(*), MIN(id)
+FROM message_bench_plain
+WHERE chat_id = @chat_id AND id > @last_read AND sender_id != @user_id;
+
+EXPLAIN ANALYZE
+SELECT COUNT(*), MIN(id)
+FROM message_bench_part
+WHERE chat_id = @chat_id AND id > @last_read AND sender_id != @user_id;
+
+-- Q4 多媒体清理扫描(新结构可按 sent_time 裁剪分区)
+EXPLAIN ANALYZE
+SELECT id, type, content
+FROM message_bench_plain
+WHERE type IN ('IMAGE', 'VIDEO', 'FILE') AND id > @last_read AND sent_time < DATE_SUB(NOW(), INTERVAL 30 DAY)
+LIMIT 1000;
+
+EXPLAIN ANALYZE
+SELECT id, type, content
+FROM message_bench_part
+WHERE type IN ('IMAGE', 'VIDEO', 'FILE') AND id > @last_read AND sent_time < DATE_SUB(NOW(), INTERVAL 30 DAY)
+LIMIT 1000;
+
+-- 清理
+-- DROP TABLE message_bench_plain, message_bench_part;
+-- DROP PROCEDURE bench_partition;
+-- DROP PROCEDURE bench_fill;